@@ -7,6 +7,9 @@
  ******************************************************************************/
 package graphprogram;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
  * The {@code GraphProgram} class represents a graph program.
  *
@@ -15,11 +18,18 @@ package graphprogram;
 public class App {
 
     /**
-     * Unit tests the {@code GraphProgram} data type.
+     * Unit tests the {@code GraphProgram} data type, or serves a graph with
+     * {@code serve edges.txt [port] [directed]}.
      *
      * @param args the command-line arguments
+     * @throws IOException if the served graph cannot be loaded.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            GraphServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         int vertexCount = 5;
         int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 1, 3 }, { 2, 3 }, { 3, 4 } };
         Graph graph = new GraphAdjacencyMatrix(vertexCount, edges, false);
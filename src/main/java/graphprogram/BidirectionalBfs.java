@@ -0,0 +1,273 @@
+/******************************************************************************
+ *  Compilation:  javac BidirectionalBfs.java
+ *  Execution:    java BidirectionalBfs
+ *
+ *  Point to point shortest paths with a bidirectional BFS.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.util.Arrays;
+
+/**
+ * Point to point shortest path queries on an unweighted graph.
+ *
+ * <p>The search runs a BFS from both ends and always expands a whole level of
+ * the smaller frontier, so it stops after exploring roughly the square root of
+ * what a single BFS from the source would. On a directed graph the backward
+ * search follows a reverse adjacency index built once from the graph; call
+ * {@link #refresh} after mutating the graph.
+ *
+ * <p>The visited, distance and parent arrays are kept between queries. A
+ * vertex counts as visited only if its stamp equals the current query epoch,
+ * so starting a query does not clear anything. An instance is not thread
+ * safe; {@link #BidirectionalBfs(BidirectionalBfs)} makes another one sharing
+ * the reverse index.
+ *
+ * @author ev
+ */
+public class BidirectionalBfs {
+
+  private final Graph graph; // graph being searched.
+  private ReverseIndex reverse; // incoming edges, null for undirected graphs.
+
+  private int epoch = 0; // stamp of the current query.
+  private int[] forwardStamp = new int[0]; // epoch in which the source side saw a vertex.
+  private int[] backwardStamp = new int[0]; // epoch in which the target side saw a vertex.
+  private int[] forwardDistance = new int[0]; // hops from the source.
+  private int[] backwardDistance = new int[0]; // hops to the target.
+  private int[] forwardParent = new int[0]; // previous vertex on the way from the source.
+  private int[] backwardParent = new int[0]; // next vertex on the way to the target.
+  private int[] forwardQueue = new int[0]; // source side BFS queue.
+  private int[] backwardQueue = new int[0]; // target side BFS queue.
+
+  /**
+   * Initializes the search, indexing the incoming edges of a directed graph.
+   *
+   * @param graph the graph to search.
+   */
+  public BidirectionalBfs(Graph graph) {
+    this.graph = graph;
+    refresh();
+  }
+
+  /**
+   * Initializes another search on the same graph, sharing the reverse index
+   * but with its own scratch arrays.
+   *
+   * @param other the search to share the index with.
+   */
+  public BidirectionalBfs(BidirectionalBfs other) {
+    this.graph = other.graph;
+    this.reverse = other.reverse;
+  }
+
+  /**
+   * This method is used to rebuild the reverse adjacency index after the
+   * graph was mutated. Searches sharing the old index keep using it.
+   */
+  public void refresh() {
+    this.reverse = graph.isDirected() ? new ReverseIndex(graph) : null;
+  }
+
+  /**
+   * This method is used to get the number of hops between two vertices.
+   *
+   * @param source the start vertex.
+   * @param target the end vertex.
+   * @return the number of hops, or -1 if the target is unreachable.
+   */
+  public int distance(int source, int target) {
+    return shortestPath(source, target).length - 1;
+  }
+
+  /**
+   * This method is used to get a shortest path between two vertices.
+   *
+   * @param source the start vertex.
+   * @param target the end vertex.
+   * @return the vertices of the path, empty if the target is unreachable.
+   * @throws IllegalArgumentException if a vertex does not exist.
+   */
+  public int[] shortestPath(int source, int target) {
+    if (!graph.isVertex(source) || !graph.isVertex(target)) {
+      throw new IllegalArgumentException("Invalid path: " + source + " " + target);
+    }
+    if (source == target) {
+      return new int[] { source };
+    }
+
+    nextEpoch();
+
+    int forwardHead = 0, forwardTail = 0, backwardHead = 0, backwardTail = 0;
+
+    forwardStamp[source] = epoch;
+    forwardDistance[source] = 0;
+    forwardParent[source] = -1;
+    forwardQueue[forwardTail++] = source;
+
+    backwardStamp[target] = epoch;
+    backwardDistance[target] = 0;
+    backwardParent[target] = -1;
+    backwardQueue[backwardTail++] = target;
+
+    int best = Integer.MAX_VALUE, meetFrom = -1, meetTo = -1;
+
+    while (forwardHead < forwardTail && backwardHead < backwardTail) {
+      boolean forward = forwardTail - forwardHead <= backwardTail - backwardHead;
+      int[] queue = forward ? forwardQueue : backwardQueue;
+      int[] stamp = forward ? forwardStamp : backwardStamp;
+      int[] distance = forward ? forwardDistance : backwardDistance;
+      int[] parent = forward ? forwardParent : backwardParent;
+      int[] otherStamp = forward ? backwardStamp : forwardStamp;
+      int[] otherDistance = forward ? backwardDistance : forwardDistance;
+      int head = forward ? forwardHead : backwardHead;
+      int tail = forward ? forwardTail : backwardTail;
+      int levelEnd = tail;
+
+      // expand the whole level, and keep the best meeting point seen in it.
+      while (head < levelEnd) {
+        int u = queue[head++];
+        int[] neighbors = forward || reverse == null ? graph.neighbors(u) : reverse.neighbors(u);
+
+        for (int v : neighbors) {
+          if (otherStamp[v] == epoch) {
+            int length = distance[u] + 1 + otherDistance[v];
+
+            if (length < best) {
+              best = length;
+              meetFrom = forward ? u : v;
+              meetTo = forward ? v : u;
+            }
+          }
+          if (stamp[v] != epoch) {
+            stamp[v] = epoch;
+            distance[v] = distance[u] + 1;
+            parent[v] = u;
+            queue[tail++] = v;
+          }
+        }
+      }
+
+      if (forward) {
+        forwardHead = head;
+        forwardTail = tail;
+      } else {
+        backwardHead = head;
+        backwardTail = tail;
+      }
+
+      if (best != Integer.MAX_VALUE) {
+        return path(meetFrom, meetTo, best);
+      }
+    }
+
+    return new int[0];
+  }
+
+  /**
+   * This method is used to join the two halves of a path at the edge where
+   * the searches met.
+   *
+   * @param meetFrom the end of the source side half.
+   * @param meetTo   the start of the target side half.
+   * @param length   the number of hops of the path.
+   * @return the vertices of the path.
+   */
+  private int[] path(int meetFrom, int meetTo, int length) {
+    int[] path = new int[length + 1];
+    int index = forwardDistance[meetFrom];
+
+    for (int v = meetFrom; v != -1; v = forwardParent[v]) {
+      path[index--] = v;
+    }
+
+    index = forwardDistance[meetFrom] + 1;
+    for (int v = meetTo; v != -1; v = backwardParent[v]) {
+      path[index++] = v;
+    }
+
+    return path;
+  }
+
+  /**
+   * This method is used to start a new query epoch, growing the scratch
+   * arrays when the graph gained vertices.
+   */
+  private void nextEpoch() {
+    int vertexCount = graph.getVertexCount();
+
+    if (forwardStamp.length < vertexCount) {
+      int capacity = Math.max(vertexCount, forwardStamp.length * 2);
+
+      forwardStamp = Arrays.copyOf(forwardStamp, capacity);
+      backwardStamp = Arrays.copyOf(backwardStamp, capacity);
+      forwardDistance = new int[capacity];
+      backwardDistance = new int[capacity];
+      forwardParent = new int[capacity];
+      backwardParent = new int[capacity];
+      forwardQueue = new int[capacity];
+      backwardQueue = new int[capacity];
+    }
+
+    if (epoch == Integer.MAX_VALUE) {
+      Arrays.fill(forwardStamp, 0);
+      Arrays.fill(backwardStamp, 0);
+      epoch = 0;
+    }
+    epoch++;
+  }
+
+  /**
+   * Incoming edges of a directed graph in compressed sparse row form.
+   */
+  private static class ReverseIndex {
+    private final int[] offsets; // start of the incoming edges of every vertex.
+    private final int[] sources; // sources of the incoming edges.
+
+    /**
+     * This is the constructor for the ReverseIndex class.
+     *
+     * @param graph the graph to index.
+     */
+    ReverseIndex(Graph graph) {
+      int vertexCount = graph.getVertexCount();
+      int[][] adjacency = new int[vertexCount][];
+
+      offsets = new int[vertexCount + 1];
+      for (int u = 0; u < vertexCount; u++) {
+        adjacency[u] = graph.isVertex(u) ? graph.neighbors(u) : new int[0];
+        for (int v : adjacency[u]) {
+          offsets[v + 1]++;
+        }
+      }
+
+      for (int v = 0; v < vertexCount; v++) {
+        offsets[v + 1] += offsets[v];
+      }
+
+      int[] fill = Arrays.copyOf(offsets, vertexCount);
+      sources = new int[offsets[vertexCount]];
+      for (int u = 0; u < vertexCount; u++) {
+        for (int v : adjacency[u]) {
+          sources[fill[v]++] = u;
+        }
+      }
+    }
+
+    /**
+     * This method is used to get the sources of the incoming edges of a
+     * vertex.
+     *
+     * @param vertex the vertex.
+     * @return the incoming neighbours, in ascending order.
+     */
+    int[] neighbors(int vertex) {
+      if (vertex + 1 >= offsets.length) {
+        return new int[0];
+      }
+
+      return Arrays.copyOfRange(sources, offsets[vertex], offsets[vertex + 1]);
+    }
+  }
+}
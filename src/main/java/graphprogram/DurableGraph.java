@@ -0,0 +1,1170 @@
+/******************************************************************************
+ *  Compilation:  javac DurableGraph.java
+ *  Execution:    java DurableGraph
+ *
+ *  A graph whose mutations survive restarts through a write-ahead log.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durability layer over another graph.
+ *
+ * <p>Every mutation is applied to the wrapped graph and appended to a binary
+ * write-ahead log as a 13 byte record: an opcode, two vertices and a CRC32C.
+ * A flusher thread writes whatever records piled up and forces them to disk
+ * with one fsync, so concurrent writers share the cost of a sync (group
+ * commit). With {@code waitForSync} a mutation returns only once its record is
+ * on disk, otherwise at most the records of the last
+ * {@code syncDelayMillis} are lost in a crash.
+ *
+ * <p>A checkpoint writes the vertices and edges of the graph to a new file,
+ * renames it over the previous one and deletes the logs it covers. Logs and
+ * checkpoints carry a generation: checkpoint {@code g} holds everything
+ * written to logs before {@code wal-g.log}. On startup the last checkpoint is
+ * loaded and the newer logs are replayed. A record torn by a crash at the end
+ * of the newest log is cut off; damage in an older log fails the recovery.
+ * A new directory starts with a checkpoint of the empty graph, so the number
+ * of vertices and the direction never depend on the constructor arguments of
+ * a later run.
+ *
+ * <p>Reads share a lock and mutations take it exclusively, so the wrapped
+ * graph does not need to be thread safe. Removed vertex ids are reused by the
+ * wrapped graph; the checkpoint keeps them in removal order so that replayed
+ * {@code addVertex} calls get the same ids, which holds for the graphs of this
+ * package.
+ *
+ * @author ev
+ */
+public class DurableGraph implements Graph, AutoCloseable {
+
+  public static final long DEFAULT_SYNC_DELAY_MILLIS = 0; // extra wait for a bigger group.
+  public static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 60_000; // time between checkpoints.
+
+  static final String CHECKPOINT = "checkpoint.bin"; // name of the checkpoint file.
+  static final int RECORD_SIZE = 13; // opcode, two vertices and checksum.
+
+  private static final int LOG_MAGIC = 0x4757414c; // "GWAL".
+  private static final int CHECKPOINT_MAGIC = 0x4743504b; // "GCPK".
+  private static final int LOG_HEADER_SIZE = 12; // magic and generation.
+  private static final int MAX_PENDING = 1 << 20; // buffered bytes before writers wait.
+
+  private static final byte ADD_EDGE = 1;
+  private static final byte REMOVE_EDGE = 2;
+  private static final byte ADD_VERTEX = 3;
+  private static final byte REMOVE_VERTEX = 4;
+
+  /**
+   * Builds the wrapped graph, for instance {@code GraphAdaptive::new}.
+   */
+  public interface GraphFactory {
+    /**
+     * This method is used to build a graph.
+     *
+     * @param vertexCount the number of vertices.
+     * @param edges       the edges.
+     * @param isDirected  if the graph is directed.
+     * @return the graph.
+     */
+    Graph create(int vertexCount, int[][] edges, boolean isDirected);
+  }
+
+  private final Path directory; // home of the checkpoint and the logs.
+  private final Graph graph; // wrapped graph.
+  private final boolean waitForSync; // do mutations wait for their fsync?
+  private final long syncDelayNanos; // extra wait of the flusher for more records.
+
+  private final ReentrantReadWriteLock graphLock = new ReentrantReadWriteLock(); // readers and mutators.
+  private final ReentrantLock logLock = new ReentrantLock(); // guards everything below.
+  private final Condition pendingWork = logLock.newCondition(); // records appended, or closing.
+  private final Condition synced = logLock.newCondition(); // a flush finished.
+
+  private ByteBuffer pending = ByteBuffer.allocate(64 * RECORD_SIZE); // records not written yet.
+  private ByteBuffer writing = ByteBuffer.allocate(64 * RECORD_SIZE); // records being written.
+  private final CRC32C crc = new CRC32C(); // checksum of the records.
+  private FileChannel log; // log being appended to.
+  private long generation; // generation of that log.
+  private long appendedSequence = 0; // number of records appended.
+  private long durableSequence = 0; // number of records forced to disk.
+  private long syncCount = 0; // number of fsyncs.
+  private boolean flushing = false; // is the flusher writing outside the lock?
+  private boolean closed = false; // was close called?
+  private IOException failure = null; // first write failure, fatal.
+
+  private int[] removedOrder = new int[8]; // removed vertex ids, oldest first.
+  private int removedCount = 0; // number of removed vertex ids.
+
+  private final long recoveredRecords; // log records replayed at startup.
+  private final long recoveryNanos; // time spent loading and replaying.
+  private final ExecutorService flusher = Executors.newSingleThreadExecutor(); // runs the flush loop.
+  private final Future<?> flushLoop; // running flush loop.
+  private final ScheduledExecutorService checkpointer; // periodic checkpoints, null if disabled.
+
+  /**
+   * Opens the graph with the default settings, waiting for the fsync of
+   * every mutation.
+   *
+   * @param directory   the home of the checkpoint and the logs.
+   * @param vertexCount the number of vertices of a new graph.
+   * @param isDirected  if the graph is directed.
+   * @param factory     builds the wrapped graph.
+   * @throws IOException if the files cannot be read or created, or hold a
+   *                     graph of the other kind.
+   */
+  public DurableGraph(Path directory, int vertexCount, boolean isDirected, GraphFactory factory)
+      throws IOException {
+    this(directory, vertexCount, isDirected, factory, true, DEFAULT_SYNC_DELAY_MILLIS,
+        DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Opens the graph, recovering it from the directory if it holds one. A
+   * new directory gets a checkpoint of the empty graph right away, so its
+   * shape is known on recovery; {@code vertexCount} only sizes a new graph.
+   *
+   * @param directory                the home of the checkpoint and the logs.
+   * @param vertexCount              the number of vertices of a new graph.
+   * @param isDirected               if the graph is directed.
+   * @param factory                  builds the wrapped graph.
+   * @param waitForSync              do mutations wait for their fsync?
+   * @param syncDelayMillis          how long the flusher gathers records.
+   * @param checkpointIntervalMillis the time between checkpoints, 0 for none.
+   * @throws IOException if the files cannot be read or created, or hold a
+   *                     graph of the other kind.
+   */
+  public DurableGraph(Path directory, int vertexCount, boolean isDirected, GraphFactory factory,
+      boolean waitForSync, long syncDelayMillis, long checkpointIntervalMillis) throws IOException {
+    if (syncDelayMillis < 0 || checkpointIntervalMillis < 0) {
+      throw new IllegalArgumentException("Invalid interval: " + syncDelayMillis + " " + checkpointIntervalMillis);
+    }
+
+    long start = System.nanoTime();
+
+    this.directory = directory;
+    this.waitForSync = waitForSync;
+    this.syncDelayNanos = TimeUnit.MILLISECONDS.toNanos(syncDelayMillis);
+
+    Files.createDirectories(directory);
+    Files.deleteIfExists(directory.resolve(CHECKPOINT + ".tmp"));
+
+    Path checkpoint = directory.resolve(CHECKPOINT);
+    if (!Files.exists(checkpoint)) {
+      try (DirectoryStream<Path> logs = Files.newDirectoryStream(directory, "wal-*.log")) {
+        if (logs.iterator().hasNext()) {
+          throw new IOException("Logs without a checkpoint: " + directory);
+        }
+      }
+      // the shape of a new graph is persisted before anything is logged.
+      writeCheckpoint(0, isDirected, vertexCount, new int[0], new int[0], 0);
+    }
+    this.graph = readCheckpoint(checkpoint, factory);
+    if (graph.isDirected() != isDirected) {
+      throw new IOException("Graph in " + directory + " is " + (isDirected ? "undirected" : "directed"));
+    }
+    this.recoveredRecords = replayLogs();
+    this.recoveryNanos = System.nanoTime() - start;
+
+    this.flushLoop = flusher.submit(this::flushLoop);
+    if (checkpointIntervalMillis > 0) {
+      checkpointer = Executors.newSingleThreadScheduledExecutor();
+      checkpointer.scheduleWithFixedDelay(this::backgroundCheckpoint, checkpointIntervalMillis,
+          checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      checkpointer = null;
+    }
+  }
+
+  /**
+   * This method is used to load the checkpoint into a new graph and set the
+   * generation.
+   *
+   * @param file    the checkpoint.
+   * @param factory builds the graph.
+   * @return the graph.
+   * @throws IOException if the checkpoint cannot be read or is damaged.
+   */
+  private Graph readCheckpoint(Path file, GraphFactory factory) throws IOException {
+    CRC32C checksum = new CRC32C();
+
+    try (CheckedInputStream checked = new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(file), 1 << 16), checksum);
+        DataInputStream in = new DataInputStream(checked)) {
+      if (in.readInt() != CHECKPOINT_MAGIC) {
+        throw new IOException("Not a checkpoint: " + file);
+      }
+
+      this.generation = in.readLong();
+      boolean isDirected = in.readBoolean();
+      int vertexCount = in.readInt();
+      int[] removed = new int[in.readInt()];
+      for (int i = 0; i < removed.length; i++) {
+        removed[i] = in.readInt();
+      }
+      int[][] edges = new int[in.readInt()][];
+      for (int i = 0; i < edges.length; i++) {
+        edges[i] = new int[] { in.readInt(), in.readInt() };
+      }
+
+      int expected = (int) checksum.getValue();
+      if (in.readInt() != expected) {
+        throw new IOException("Damaged checkpoint: " + file);
+      }
+
+      Graph restored = factory.create(vertexCount, edges, isDirected);
+      for (int vertex : removed) {
+        restored.removeVertex(vertex);
+        pushRemoved(vertex);
+      }
+
+      return restored;
+    } catch (EOFException e) {
+      throw new IOException("Truncated checkpoint: " + file, e);
+    }
+  }
+
+  /**
+   * This method is used to replay the logs newer than the checkpoint, delete
+   * the older ones and open the newest for appending.
+   *
+   * @return the number of replayed records.
+   * @throws IOException if a log cannot be read or created.
+   */
+  private long replayLogs() throws IOException {
+    ArrayList<Long> generations = new ArrayList<>();
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        long fileGeneration = Long.parseLong(name.substring(4, name.length() - 4));
+
+        if (fileGeneration < generation) {
+          Files.delete(file);
+        } else {
+          generations.add(fileGeneration);
+        }
+      }
+    }
+    generations.sort(null);
+
+    long replayed = 0;
+    for (long fileGeneration : generations) {
+      FileChannel channel = FileChannel.open(logFile(fileGeneration), StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      boolean keep = false;
+
+      boolean newest = fileGeneration == generations.get(generations.size() - 1);
+
+      try {
+        replayed += replay(channel, fileGeneration, newest);
+        if (newest) {
+          this.log = channel;
+          this.generation = fileGeneration;
+          keep = true;
+        }
+      } finally {
+        if (!keep) {
+          channel.close();
+        }
+      }
+    }
+
+    if (log == null) {
+      log = createLog(generation);
+    }
+
+    return replayed;
+  }
+
+  /**
+   * This method is used to replay one log onto the graph. Only the newest
+   * log can be torn by a crash, its damaged tail is cut off and the position
+   * left at the end. Older logs were forced before the switch to the next
+   * one, so damage there means lost records and recovery fails.
+   *
+   * @param channel        the log.
+   * @param fileGeneration the generation in the name of the log.
+   * @param newest         is this the log to append to?
+   * @return the number of replayed records.
+   * @throws IOException if the log cannot be read, is damaged or does not fit
+   *                     the graph.
+   */
+  private long replay(FileChannel channel, long fileGeneration, boolean newest) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+
+    while (header.hasRemaining() && channel.read(header) >= 0) {
+      // reads the whole header.
+    }
+    header.flip();
+    if (header.remaining() < LOG_HEADER_SIZE || header.getInt() != LOG_MAGIC
+        || header.getLong() != fileGeneration) {
+      if (!newest) {
+        throw new IOException("Damaged log header: " + logFile(fileGeneration));
+      }
+      // a crash while creating the log, nothing was appended to it.
+      channel.truncate(0);
+      channel.position(0);
+      writeHeader(channel, fileGeneration);
+      return 0;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(4096 * RECORD_SIZE);
+    long valid = LOG_HEADER_SIZE;
+    long replayed = 0;
+
+    scan:
+    while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+      buffer.flip();
+      if (buffer.remaining() < RECORD_SIZE) {
+        break;
+      }
+      while (buffer.remaining() >= RECORD_SIZE) {
+        crc.reset();
+        crc.update(buffer.array(), buffer.position(), RECORD_SIZE - 4);
+
+        byte opcode = buffer.get();
+        int vertex1 = buffer.getInt();
+        int vertex2 = buffer.getInt();
+
+        if (buffer.getInt() != (int) crc.getValue()) {
+          break scan;
+        }
+        apply(opcode, vertex1, vertex2);
+        valid += RECORD_SIZE;
+        replayed++;
+      }
+      buffer.compact();
+    }
+
+    if (channel.size() > valid) {
+      if (!newest) {
+        throw new IOException("Damaged log " + logFile(fileGeneration) + " at byte " + valid);
+      }
+      channel.truncate(valid);
+      channel.force(false);
+    }
+    channel.position(valid);
+
+    return replayed;
+  }
+
+  /**
+   * This method is used to apply a replayed record to the graph.
+   *
+   * @param opcode  the mutation.
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws IOException if the record does not fit the graph.
+   */
+  private void apply(byte opcode, int vertex1, int vertex2) throws IOException {
+    switch (opcode) {
+      case ADD_EDGE:
+        graph.addEdge(vertex1, vertex2);
+        break;
+      case REMOVE_EDGE:
+        graph.removeEdge(vertex1, vertex2);
+        break;
+      case ADD_VERTEX:
+        int vertex = graph.addVertex();
+
+        if (vertex != vertex1) {
+          throw new IOException("Replayed vertex " + vertex + " instead of " + vertex1);
+        }
+        dropRemoved(vertex);
+        break;
+      case REMOVE_VERTEX:
+        graph.removeVertex(vertex1);
+        pushRemoved(vertex1);
+        break;
+      default:
+        throw new IOException("Invalid record: " + opcode);
+    }
+  }
+
+  /**
+   * This method is used to get the file of a log generation.
+   *
+   * @param logGeneration the generation.
+   * @return the file.
+   */
+  private Path logFile(long logGeneration) {
+    return directory.resolve("wal-" + logGeneration + ".log");
+  }
+
+  /**
+   * This method is used to create an empty log, synced to disk.
+   *
+   * @param logGeneration the generation of the log.
+   * @return the log, positioned after the header.
+   * @throws IOException if the log cannot be created.
+   */
+  private FileChannel createLog(long logGeneration) throws IOException {
+    FileChannel channel = FileChannel.open(logFile(logGeneration), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ);
+
+    writeHeader(channel, logGeneration);
+    syncDirectory();
+
+    return channel;
+  }
+
+  /**
+   * This method is used to write and sync the header of a log.
+   *
+   * @param channel       the log, positioned at its start.
+   * @param logGeneration the generation of the log.
+   * @throws IOException if the header cannot be written.
+   */
+  private static void writeHeader(FileChannel channel, long logGeneration) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+
+    header.putInt(LOG_MAGIC).putLong(logGeneration).flip();
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * This method is used to sync the directory, so created and renamed files
+   * survive a crash. Not every platform can open a directory, and there it is
+   * skipped.
+   */
+  private void syncDirectory() {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // the rename is still atomic, only its durability is up to the OS.
+    }
+  }
+
+  /**
+   * This method is used to append a record, waiting while too many bytes are
+   * buffered. Called with the graph write lock held, so the log order is the
+   * order in which the graph was mutated.
+   *
+   * @param opcode  the mutation.
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @return the sequence number of the record.
+   */
+  private long append(byte opcode, int vertex1, int vertex2) {
+    logLock.lock();
+    try {
+      while (pending.position() >= MAX_PENDING && failure == null && !closed) {
+        synced.awaitUninterruptibly();
+      }
+      checkOpen();
+
+      if (pending.remaining() < RECORD_SIZE) {
+        ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+
+        pending.flip();
+        pending = larger.put(pending);
+      }
+
+      int start = pending.position();
+      pending.put(opcode).putInt(vertex1).putInt(vertex2);
+      crc.reset();
+      crc.update(pending.array(), start, RECORD_SIZE - 4);
+      pending.putInt((int) crc.getValue());
+
+      pendingWork.signal();
+
+      return ++appendedSequence;
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to wait for a record to reach the disk, if this graph
+   * waits for syncs.
+   *
+   * @param sequence the sequence number of the record.
+   */
+  private void commit(long sequence) {
+    if (waitForSync) {
+      awaitDurable(sequence);
+    }
+  }
+
+  /**
+   * This method is used to wait until a record is on disk.
+   *
+   * @param sequence the sequence number of the record.
+   * @throws UncheckedIOException if the log cannot be written.
+   */
+  private void awaitDurable(long sequence) {
+    logLock.lock();
+    try {
+      while (durableSequence < sequence && failure == null) {
+        synced.awaitUninterruptibly();
+      }
+      if (durableSequence < sequence) {
+        throw new UncheckedIOException("Write-ahead log failed", failure);
+      }
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to refuse a mutation before it reaches the graph, if
+   * it could not be logged. Called with the graph write lock held.
+   */
+  private void checkWritable() {
+    logLock.lock();
+    try {
+      checkOpen();
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to throw if the log failed or was closed. Called
+   * with the log lock held.
+   */
+  private void checkOpen() {
+    if (failure != null) {
+      throw new UncheckedIOException("Write-ahead log failed", failure);
+    }
+    if (closed) {
+      throw new IllegalStateException("DurableGraph is closed");
+    }
+  }
+
+  /**
+   * This method is used to write and force batches of records until the
+   * graph is closed and everything is on disk. Records appended while a
+   * batch is forced make up the next batch.
+   */
+  private void flushLoop() {
+    while (true) {
+      FileChannel channel;
+      long sequence;
+
+      logLock.lock();
+      try {
+        while (pending.position() == 0 && !closed) {
+          pendingWork.awaitUninterruptibly();
+        }
+        if (pending.position() == 0) {
+          return;
+        }
+        if (syncDelayNanos > 0 && !closed) {
+          long wait = syncDelayNanos;
+
+          while (wait > 0 && !closed) {
+            wait = pendingWork.awaitNanos(wait);
+          }
+        }
+
+        ByteBuffer swap = writing;
+        writing = pending;
+        pending = swap;
+        sequence = appendedSequence;
+        channel = log;
+        flushing = true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        logLock.unlock();
+      }
+
+      IOException error = null;
+      try {
+        write(channel, writing);
+      } catch (IOException e) {
+        error = e;
+      }
+
+      logLock.lock();
+      try {
+        flushing = false;
+        if (error == null) {
+          durableSequence = sequence;
+          syncCount++;
+        } else if (failure == null) {
+          failure = error;
+        }
+        synced.signalAll();
+        if (failure != null) {
+          return;
+        }
+      } finally {
+        logLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * This method is used to write a batch of records and force it to disk.
+   *
+   * @param channel the log.
+   * @param batch   the records, emptied on return.
+   * @throws IOException if the log cannot be written.
+   */
+  private static void write(FileChannel channel, ByteBuffer batch) throws IOException {
+    batch.flip();
+    try {
+      while (batch.hasRemaining()) {
+        channel.write(batch);
+      }
+      channel.force(false);
+    } finally {
+      batch.clear();
+    }
+  }
+
+  /**
+   * This method is used to write a checkpoint and delete the logs it makes
+   * obsolete. Mutations are paused only while the graph is copied and the log
+   * is switched; the checkpoint file is written concurrently with them.
+   *
+   * @throws IOException if the checkpoint cannot be written.
+   */
+  public synchronized void checkpoint() throws IOException {
+    int[] removed;
+    int[] edges;
+    int edgeCount;
+    int vertexCount;
+    boolean isDirected;
+    long nextGeneration;
+
+    graphLock.readLock().lock();
+    try {
+      logLock.lock();
+      try {
+        checkOpen();
+        while (flushing) {
+          synced.awaitUninterruptibly();
+        }
+        checkOpen();
+
+        // everything up to here goes to the old log, the rest to the new one.
+        write(log, pending);
+        durableSequence = appendedSequence;
+        syncCount++;
+        synced.signalAll();
+
+        nextGeneration = generation + 1;
+        FileChannel next = createLog(nextGeneration);
+        log.close();
+        log = next;
+        generation = nextGeneration;
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        }
+        synced.signalAll();
+        throw e;
+      } finally {
+        logLock.unlock();
+      }
+
+      vertexCount = graph.getVertexCount();
+      isDirected = graph.isDirected();
+      removed = Arrays.copyOf(removedOrder, removedCount);
+      edges = new int[64];
+      edgeCount = 0;
+      for (int u = 0; u < vertexCount; u++) {
+        if (!graph.isVertex(u)) {
+          continue;
+        }
+        for (int v : graph.neighbors(u)) {
+          if (isDirected || u <= v) {
+            if (2 * edgeCount + 2 > edges.length) {
+              edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[2 * edgeCount] = u;
+            edges[2 * edgeCount + 1] = v;
+            edgeCount++;
+          }
+        }
+      }
+    } finally {
+      graphLock.readLock().unlock();
+    }
+
+    writeCheckpoint(nextGeneration, isDirected, vertexCount, removed, edges, edgeCount);
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+
+        if (Long.parseLong(name.substring(4, name.length() - 4)) < nextGeneration) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * This method is used to write a checkpoint to a temporary file and rename
+   * it over the previous one.
+   *
+   * @param checkpointGeneration the first log generation not in the checkpoint.
+   * @param isDirected           if the graph is directed.
+   * @param vertexCount          the number of vertices.
+   * @param removed              the removed vertex ids, oldest first.
+   * @param edges                the edges, as pairs of vertices.
+   * @param edgeCount            the number of edges.
+   * @throws IOException if the checkpoint cannot be written.
+   */
+  private void writeCheckpoint(long checkpointGeneration, boolean isDirected, int vertexCount, int[] removed,
+      int[] edges, int edgeCount) throws IOException {
+    Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+    CRC32C checksum = new CRC32C();
+
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), checksum));
+
+      out.writeInt(CHECKPOINT_MAGIC);
+      out.writeLong(checkpointGeneration);
+      out.writeBoolean(isDirected);
+      out.writeInt(vertexCount);
+      out.writeInt(removed.length);
+      for (int vertex : removed) {
+        out.writeInt(vertex);
+      }
+      out.writeInt(edgeCount);
+      for (int i = 0; i < 2 * edgeCount; i++) {
+        out.writeInt(edges[i]);
+      }
+      out.writeInt((int) checksum.getValue());
+      out.flush();
+      channel.force(true);
+    }
+
+    Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    syncDirectory();
+  }
+
+  /**
+   * This method is used to run a scheduled checkpoint. A failure is kept for
+   * the writers, which see it on their next mutation.
+   */
+  private void backgroundCheckpoint() {
+    try {
+      checkpoint();
+    } catch (IOException | RuntimeException e) {
+      // a failed log is reported by the mutations, a failed checkpoint file is retried next time.
+    }
+  }
+
+  /**
+   * This method is used to wait until every mutation so far is on disk.
+   */
+  public void sync() {
+    long sequence;
+
+    logLock.lock();
+    try {
+      sequence = appendedSequence;
+    } finally {
+      logLock.unlock();
+    }
+
+    awaitDurable(sequence);
+  }
+
+  /**
+   * This method is used to get the number of fsyncs of the log.
+   *
+   * @return the number of fsyncs.
+   */
+  public long getSyncCount() {
+    logLock.lock();
+    try {
+      return syncCount;
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the number of log records replayed at
+   * startup.
+   *
+   * @return the number of replayed records.
+   */
+  public long getRecoveredRecords() {
+    return recoveredRecords;
+  }
+
+  /**
+   * This method is used to get the time spent loading the checkpoint and
+   * replaying the logs at startup.
+   *
+   * @return the recovery time in nanoseconds.
+   */
+  public long getRecoveryNanos() {
+    return recoveryNanos;
+  }
+
+  /**
+   * Stops the checkpoints, syncs the pending records and closes the log.
+   *
+   * @throws IOException if the last records cannot be written.
+   */
+  public void close() throws IOException {
+    if (checkpointer != null) {
+      checkpointer.shutdown();
+      try {
+        checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    graphLock.writeLock().lock();
+    logLock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pendingWork.signal();
+      synced.signalAll();
+    } finally {
+      logLock.unlock();
+      graphLock.writeLock().unlock();
+    }
+
+    try {
+      flushLoop.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while closing", e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      flusher.shutdown();
+      log.close();
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * This method is used to remember a removed vertex id.
+   *
+   * @param vertex the removed vertex.
+   */
+  private void pushRemoved(int vertex) {
+    if (removedCount == removedOrder.length) {
+      removedOrder = Arrays.copyOf(removedOrder, removedCount * 2);
+    }
+    removedOrder[removedCount++] = vertex;
+  }
+
+  /**
+   * This method is used to forget a removed vertex id that was reused.
+   *
+   * @param vertex the reused vertex.
+   */
+  private void dropRemoved(int vertex) {
+    for (int i = removedCount - 1; i >= 0; i--) {
+      if (removedOrder[i] == vertex) {
+        System.arraycopy(removedOrder, i + 1, removedOrder, i, removedCount - i - 1);
+        removedCount--;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of vertices in the graph, including removed vertices
+   * whose ids were not reused yet.
+   *
+   * @return the number of vertices in the graph.
+   */
+  public int getVertexCount() {
+    graphLock.readLock().lock();
+    try {
+      return graph.getVertexCount();
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns if the graph is directed.
+   *
+   * @return if the graph is directed.
+   */
+  public boolean isDirected() {
+    return graph.isDirected();
+  }
+
+  /**
+   * Adds a vertex and logs it, reusing the id of a removed vertex when there
+   * is one.
+   *
+   * @return the id of the new vertex.
+   * @throws UncheckedIOException if the log cannot be written.
+   */
+  public int addVertex() {
+    int vertex;
+    long sequence;
+
+    graphLock.writeLock().lock();
+    try {
+      checkWritable();
+      vertex = graph.addVertex();
+      dropRemoved(vertex);
+      sequence = append(ADD_VERTEX, vertex, 0);
+    } finally {
+      graphLock.writeLock().unlock();
+    }
+    commit(sequence);
+
+    return vertex;
+  }
+
+  /**
+   * Removes a vertex and all of its edges and logs it. The id is reused by a
+   * later {@link #addVertex}.
+   *
+   * @param vertex the vertex to remove.
+   * @throws UncheckedIOException if the log cannot be written.
+   */
+  public void removeVertex(int vertex) {
+    long sequence;
+
+    graphLock.writeLock().lock();
+    try {
+      checkWritable();
+      graph.removeVertex(vertex);
+      pushRemoved(vertex);
+      sequence = append(REMOVE_VERTEX, vertex, 0);
+    } finally {
+      graphLock.writeLock().unlock();
+    }
+    commit(sequence);
+  }
+
+  /**
+   * Checks if a vertex exists.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex exists, false otherwise.
+   */
+  public boolean isVertex(int vertex) {
+    graphLock.readLock().lock();
+    try {
+      return graph.isVertex(vertex);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds an edge between two vertices and logs it.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws UncheckedIOException if the log cannot be written.
+   */
+  public void addEdge(int vertex1, int vertex2) {
+    long sequence;
+
+    graphLock.writeLock().lock();
+    try {
+      checkWritable();
+      graph.addEdge(vertex1, vertex2);
+      sequence = append(ADD_EDGE, vertex1, vertex2);
+    } finally {
+      graphLock.writeLock().unlock();
+    }
+    commit(sequence);
+  }
+
+  /**
+   * Removes an edge between two vertices and logs it.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws UncheckedIOException if the log cannot be written.
+   */
+  public void removeEdge(int vertex1, int vertex2) {
+    long sequence;
+
+    graphLock.writeLock().lock();
+    try {
+      checkWritable();
+      graph.removeEdge(vertex1, vertex2);
+      sequence = append(REMOVE_EDGE, vertex1, vertex2);
+    } finally {
+      graphLock.writeLock().unlock();
+    }
+    commit(sequence);
+  }
+
+  /**
+   * Checks if an edge exists between two vertices.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @return true if the edge exists, false otherwise.
+   */
+  public boolean isEdge(int vertex1, int vertex2) {
+    graphLock.readLock().lock();
+    try {
+      return graph.isEdge(vertex1, vertex2);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the neighbours of a vertex.
+   *
+   * @param vertex the vertex whose neighbours are to be found.
+   * @return the neighbours of the vertex.
+   */
+  public int[] neighbors(int vertex) {
+    graphLock.readLock().lock();
+    try {
+      return graph.neighbors(vertex);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to print the wrapped graph.
+   *
+   * @return the wrapped graph.
+   */
+  public String toString() {
+    graphLock.readLock().lock();
+    try {
+      return graph.toString();
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the vertex degree undirected graph.
+   *
+   * @param vertex the vertex whose degree is to be found.
+   * @return the degree of the vertex.
+   */
+  public int vertexDegreeUndirectedGraph(int vertex) {
+    graphLock.readLock().lock();
+    try {
+      return graph.vertexDegreeUndirectedGraph(vertex);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the overall vertex degree undirected graph.
+   */
+  public void overallVertexDegreeUndirectedGraph() {
+    graphLock.readLock().lock();
+    try {
+      graph.overallVertexDegreeUndirectedGraph();
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the vertex degree directed graph.
+   *
+   * @param vertex the vertex whose degree is to be found.
+   * @return the degree of the vertex.
+   */
+  public int vertexDegreeDirectedGraph(int vertex) {
+    graphLock.readLock().lock();
+    try {
+      return graph.vertexDegreeDirectedGraph(vertex);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the overall vertex degree directed graph.
+   */
+  public void overallVertexDegreeDirectedGraph() {
+    graphLock.readLock().lock();
+    try {
+      graph.overallVertexDegreeDirectedGraph();
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the transversal DFS of the graph.
+   *
+   * @param vertex  the vertex whose transversal is to be found.
+   * @param visited the array of visited vertices.
+   * @return the transversal of the graph.
+   */
+  public ArrayList<Integer> transversalDfs(int vertex, int[] visited) {
+    graphLock.readLock().lock();
+    try {
+      return graph.transversalDfs(vertex, visited);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method is used to get the transversal BFS of the graph.
+   *
+   * @param vertex the vertex whose transversal is to be found.
+   * @return the transversal of the graph.
+   */
+  public int[] transversalBfs(int vertex) {
+    graphLock.readLock().lock();
+    try {
+      return graph.transversalBfs(vertex);
+    } finally {
+      graphLock.readLock().unlock();
+    }
+  }
+}
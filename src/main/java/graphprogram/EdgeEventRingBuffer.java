@@ -0,0 +1,241 @@
+/******************************************************************************
+ *  Compilation:  javac EdgeEventRingBuffer.java
+ *  Execution:    java EdgeEventRingBuffer
+ *
+ *  A bounded ring buffer of packed edge events.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer of edge events packed into {@code long} values.
+ *
+ * <p>Producers block while the buffer is full, which is what pushes back on
+ * the stream readers when the graph cannot keep up. The single consumer takes
+ * events in batches.
+ *
+ * @author ev
+ */
+public class EdgeEventRingBuffer {
+
+  private static final long REMOVE_FLAG = Long.MIN_VALUE; // marks a remove event.
+
+  private final long[] events; // the buffered events.
+  private final int mask; // capacity - 1, the capacity is a power of two.
+  private long head = 0; // position of the next event to take.
+  private long tail = 0; // position of the next event to put.
+  private boolean closed = false; // is the buffer closed for producers?
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  /**
+   * Initializes the ring buffer.
+   *
+   * @param capacity the minimum number of buffered events, rounded up to a
+   *                 power of two.
+   */
+  public EdgeEventRingBuffer(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+
+    this.events = new long[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * This method is used to pack an edge event into a single value.
+   *
+   * @param remove  true for a remove event, false for an add event.
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @return the packed event.
+   */
+  public static long pack(boolean remove, int vertex1, int vertex2) {
+    if (vertex1 < 0 || vertex2 < 0) {
+      throw new IllegalArgumentException("Invalid edge: " + vertex1 + " " + vertex2);
+    }
+
+    return (remove ? REMOVE_FLAG : 0) | (long) vertex1 << 32 | vertex2;
+  }
+
+  /**
+   * This method is used to check if a packed event removes an edge.
+   *
+   * @param event the packed event.
+   * @return true for a remove event, false otherwise.
+   */
+  public static boolean isRemove(long event) {
+    return event < 0;
+  }
+
+  /**
+   * This method is used to get the first vertex of a packed event.
+   *
+   * @param event the packed event.
+   * @return the first vertex.
+   */
+  public static int vertex1(long event) {
+    return (int) (event >>> 32) & Integer.MAX_VALUE;
+  }
+
+  /**
+   * This method is used to get the second vertex of a packed event.
+   *
+   * @param event the packed event.
+   * @return the second vertex.
+   */
+  public static int vertex2(long event) {
+    return (int) event;
+  }
+
+  /**
+   * Returns the number of events the buffer holds.
+   *
+   * @return the capacity of the buffer.
+   */
+  public int getCapacity() {
+    return events.length;
+  }
+
+  /**
+   * Returns the number of buffered events.
+   *
+   * @return the number of buffered events.
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return (int) (tail - head);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to put an event, waiting while the buffer is full.
+   *
+   * @param event the packed event.
+   * @throws InterruptedException  if interrupted while waiting.
+   * @throws IllegalStateException if the buffer is closed.
+   */
+  public void put(long event) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (tail - head == events.length && !closed) {
+        notFull.await();
+      }
+      if (closed) {
+        throw new IllegalStateException("buffer is closed");
+      }
+
+      events[(int) tail & mask] = event;
+      tail++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to put several events, waiting while the buffer is
+   * full.
+   *
+   * @param source the packed events.
+   * @param count  the number of events to put.
+   * @throws InterruptedException  if interrupted while waiting.
+   * @throws IllegalStateException if the buffer is closed.
+   */
+  public void putAll(long[] source, int count) throws InterruptedException {
+    int offset = 0;
+
+    lock.lockInterruptibly();
+    try {
+      while (offset < count) {
+        while (tail - head == events.length && !closed) {
+          notFull.await();
+        }
+        if (closed) {
+          throw new IllegalStateException("buffer is closed");
+        }
+
+        int free = events.length - (int) (tail - head);
+        int n = Math.min(free, count - offset);
+
+        for (int i = 0; i < n; i++) {
+          events[(int) tail & mask] = source[offset + i];
+          tail++;
+        }
+        offset += n;
+        notEmpty.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to take a batch of events. It waits for the first
+   * event, and then for up to {@code latencyNanos} until {@code max} events
+   * are buffered.
+   *
+   * @param target       the array receiving the events.
+   * @param max          the maximum number of events to take.
+   * @param latencyNanos the longest time to wait for a full batch.
+   * @return the number of events taken, or -1 once the buffer is closed and
+   *         empty.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public int drainTo(long[] target, int max, long latencyNanos) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (tail == head) {
+        if (closed) {
+          return -1;
+        }
+        notEmpty.await();
+      }
+
+      long left = latencyNanos;
+      while (tail - head < max && !closed && left > 0) {
+        left = notEmpty.awaitNanos(left);
+      }
+
+      int n = (int) Math.min(tail - head, max);
+      for (int i = 0; i < n; i++) {
+        target[i] = events[(int) head & mask];
+        head++;
+      }
+      notFull.signalAll();
+
+      return n;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method is used to close the buffer. Buffered events can still be
+   * taken, new events are rejected.
+   */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
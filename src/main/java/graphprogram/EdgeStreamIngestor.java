@@ -0,0 +1,504 @@
+/******************************************************************************
+ *  Compilation:  javac EdgeStreamIngestor.java
+ *  Execution:    java EdgeStreamIngestor
+ *
+ *  A pipeline applying streamed edge events to a graph in sorted batches.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming edge ingestion pipeline.
+ *
+ * <p>Edge events are read from streams into a bounded
+ * {@link EdgeEventRingBuffer}. A single applier thread takes them out in
+ * batches of up to {@code batchSize} events, or whatever arrived within
+ * {@code flushLatencyMillis}, sorts each batch by source vertex and applies it
+ * to the graph in one pass, so the events of one row are applied together. On
+ * an undirected graph the smaller endpoint counts as the source, so both
+ * orientations of an edge land together. When the graph falls behind the
+ * buffer fills up and the readers block. Only the applier thread mutates the
+ * graph.
+ *
+ * <p>The text format has one event per line: {@code + u v} adds an edge,
+ * {@code - u v} removes it, and a bare {@code u v} is an add. The sign is
+ * separated from the vertices by whitespace, blank lines are skipped and
+ * anything else is rejected. Events the graph refuses, such as a vertex out of
+ * range, are skipped and counted by {@link #getRejectedEvents}.
+ *
+ * @author ev
+ */
+public class EdgeStreamIngestor implements AutoCloseable {
+
+  public static final int DEFAULT_BUFFER_CAPACITY = 1 << 16; // buffered events.
+  public static final int DEFAULT_BATCH_SIZE = 4096; // events per batch.
+  public static final long DEFAULT_FLUSH_LATENCY_MILLIS = 10; // longest wait for a full batch.
+  public static final int DEFAULT_POOL_SIZE = 2; // applier plus one stream reader.
+
+  private static final int READ_CHUNK = 256; // events parsed before putting them.
+
+  private final Graph graph; // graph receiving the events.
+  private final EdgeEventRingBuffer buffer; // events waiting to be applied.
+  private final int batchSize; // maximum events per batch.
+  private final boolean sortByFirst; // sort by the first vertex rather than the smaller one?
+  private final long flushLatencyNanos; // longest wait for a full batch.
+  private final ExecutorService pool; // applier and stream readers.
+  private final ArrayList<Future<Long>> readers = new ArrayList<>(); // running stream readers.
+  private Future<?> applier = null; // running applier.
+
+  private volatile boolean closing = false; // are the readers asked to stop?
+  private volatile long appliedEvents = 0; // events applied to the graph.
+  private volatile long appliedBatches = 0; // batches applied to the graph.
+  private volatile long rejectedEvents = 0; // events the graph refused.
+  private volatile long firstEventNanos = 0; // when the first batch was taken.
+  private volatile long lastEventNanos = 0; // when the latest batch was applied.
+
+  /**
+   * Initializes the pipeline with the default settings.
+   *
+   * @param graph the graph receiving the events.
+   */
+  public EdgeStreamIngestor(Graph graph) {
+    this(graph, DEFAULT_BUFFER_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_LATENCY_MILLIS, DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * Initializes the pipeline.
+   *
+   * @param graph              the graph receiving the events.
+   * @param bufferCapacity     the number of buffered events before readers block.
+   * @param batchSize          the maximum number of events per batch.
+   * @param flushLatencyMillis the longest wait for a full batch.
+   * @param poolSize           the number of threads, one is the applier.
+   */
+  public EdgeStreamIngestor(Graph graph, int bufferCapacity, int batchSize, long flushLatencyMillis, int poolSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+    }
+    if (flushLatencyMillis < 0) {
+      throw new IllegalArgumentException("Invalid flush latency: " + flushLatencyMillis);
+    }
+    if (poolSize < 2) {
+      throw new IllegalArgumentException("Invalid pool size: " + poolSize);
+    }
+
+    this.graph = graph;
+    this.buffer = new EdgeEventRingBuffer(bufferCapacity);
+    this.batchSize = batchSize;
+    this.sortByFirst = graph.isDirected();
+    this.flushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(flushLatencyMillis);
+    this.pool = Executors.newFixedThreadPool(poolSize);
+  }
+
+  /**
+   * This method is used to start the applier thread.
+   *
+   * @return this pipeline.
+   */
+  public synchronized EdgeStreamIngestor start() {
+    if (applier == null) {
+      applier = pool.submit(this::applyLoop);
+    }
+
+    return this;
+  }
+
+  /**
+   * This method is used to submit an edge addition, waiting while the buffer
+   * is full.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void addEdge(int vertex1, int vertex2) throws InterruptedException {
+    buffer.put(EdgeEventRingBuffer.pack(false, vertex1, vertex2));
+  }
+
+  /**
+   * This method is used to submit an edge removal, waiting while the buffer
+   * is full.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void removeEdge(int vertex1, int vertex2) throws InterruptedException {
+    buffer.put(EdgeEventRingBuffer.pack(true, vertex1, vertex2));
+  }
+
+  /**
+   * This method is used to read edge events from a stream until it ends. The
+   * applier is started if it is not running yet.
+   *
+   * @param in the stream of edge events.
+   * @return the number of events read, once the stream ends.
+   */
+  public synchronized Future<Long> ingest(InputStream in) {
+    start();
+    Future<Long> reader = pool.submit(() -> readEvents(in, false));
+
+    readers.add(reader);
+    return reader;
+  }
+
+  /**
+   * This method is used to follow a growing file of edge events until the
+   * pipeline is closed. The applier is started if it is not running yet.
+   *
+   * @param file the file of edge events.
+   * @return the number of events read, once the pipeline is closed.
+   */
+  public synchronized Future<Long> tail(Path file) {
+    start();
+    Future<Long> reader = pool.submit(() -> {
+      try (InputStream in = new FileInputStream(file.toFile())) {
+        return readEvents(in, true);
+      }
+    });
+
+    readers.add(reader);
+    return reader;
+  }
+
+  /**
+   * Returns the number of events applied to the graph.
+   *
+   * @return the number of applied events.
+   */
+  public long getAppliedEvents() {
+    return appliedEvents;
+  }
+
+  /**
+   * Returns the number of events the graph refused, for instance because a
+   * vertex does not exist. They are skipped and the pipeline goes on.
+   *
+   * @return the number of rejected events.
+   */
+  public long getRejectedEvents() {
+    return rejectedEvents;
+  }
+
+  /**
+   * Returns the number of batches applied to the graph.
+   *
+   * @return the number of applied batches.
+   */
+  public long getAppliedBatches() {
+    return appliedBatches;
+  }
+
+  /**
+   * Returns the sustained number of applied events per second, measured from
+   * the first batch to the latest one.
+   *
+   * @return the applied events per second.
+   */
+  public double getEventsPerSecond() {
+    long elapsed = lastEventNanos - firstEventNanos;
+
+    if (elapsed <= 0) {
+      return 0;
+    }
+
+    return appliedEvents * 1e9 / elapsed;
+  }
+
+  /**
+   * This method is used to wait for the stream readers to end, apply every
+   * buffered event and stop the threads. Followed files are read to their
+   * current end before they stop.
+   *
+   * @throws IOException if a stream reader failed.
+   */
+  public void close() throws IOException {
+    ArrayList<Future<Long>> pending;
+
+    synchronized (this) {
+      closing = true;
+      pending = new ArrayList<>(readers);
+      start();
+    }
+
+    try {
+      for (Future<Long> reader : pending) {
+        await(reader);
+      }
+    } finally {
+      buffer.close();
+      try {
+        if (applier != null) {
+          await(applier);
+        }
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * This method is used to wait for a task, rethrowing its failure.
+   *
+   * @param task the task to wait for.
+   * @throws IOException if the task failed reading a stream.
+   */
+  private void await(Future<?> task) throws IOException {
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while closing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * This method is used to take batches from the buffer and apply them, until
+   * the buffer is closed and empty. If the applier stops for any other reason
+   * the buffer is closed too, so readers fail instead of blocking on it.
+   */
+  private void applyLoop() {
+    long[] batch = new long[batchSize];
+    long[] keys = new long[batchSize];
+
+    try {
+      while (true) {
+        int size = buffer.drainTo(batch, batchSize, flushLatencyNanos);
+
+        if (size < 0) {
+          return;
+        }
+        if (firstEventNanos == 0) {
+          firstEventNanos = System.nanoTime();
+        }
+
+        int rejected = applyBatch(batch, keys, size);
+
+        appliedEvents += size - rejected;
+        rejectedEvents += rejected;
+        appliedBatches++;
+        lastEventNanos = System.nanoTime();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      buffer.close();
+    }
+  }
+
+  /**
+   * This method is used to apply one batch sorted by source vertex. The sort
+   * key is the first vertex on a directed graph and the smaller endpoint on an
+   * undirected one, and events with the same key keep their arrival order. An
+   * add followed by a remove of the same edge still ends with the edge
+   * removed. Events the graph throws on are skipped.
+   *
+   * @param batch the packed events.
+   * @param keys  scratch space for the sort keys.
+   * @param size  the number of events in the batch.
+   * @return the number of rejected events.
+   */
+  private int applyBatch(long[] batch, long[] keys, int size) {
+    int rejected = 0;
+
+    for (int i = 0; i < size; i++) {
+      int vertex1 = EdgeEventRingBuffer.vertex1(batch[i]);
+      int source = sortByFirst ? vertex1 : Math.min(vertex1, EdgeEventRingBuffer.vertex2(batch[i]));
+
+      keys[i] = (long) source << 32 | i;
+    }
+    Arrays.sort(keys, 0, size);
+
+    for (int i = 0; i < size; i++) {
+      long event = batch[(int) keys[i]];
+      int vertex1 = EdgeEventRingBuffer.vertex1(event);
+      int vertex2 = EdgeEventRingBuffer.vertex2(event);
+
+      try {
+        if (EdgeEventRingBuffer.isRemove(event)) {
+          graph.removeEdge(vertex1, vertex2);
+        } else {
+          graph.addEdge(vertex1, vertex2);
+        }
+      } catch (RuntimeException e) {
+        rejected++;
+      }
+    }
+
+    return rejected;
+  }
+
+  /**
+   * This method is used to parse edge events from a stream into the buffer.
+   *
+   * @param in     the stream of edge events.
+   * @param follow true to keep polling at the end of the stream until the
+   *               pipeline is closed.
+   * @return the number of events read.
+   * @throws IOException          if the stream cannot be read.
+   * @throws InterruptedException if interrupted while the buffer is full.
+   */
+  private long readEvents(InputStream in, boolean follow) throws IOException, InterruptedException {
+    EdgeEventParser parser = new EdgeEventParser();
+    byte[] bytes = new byte[1 << 16];
+
+    while (true) {
+      int n = in.read(bytes);
+
+      if (n > 0) {
+        parser.parse(bytes, n);
+        // a live stream may not send more for a while, hand over what we have.
+        if (in.available() == 0) {
+          parser.flush();
+        }
+      } else if (follow && !closing) {
+        parser.flush();
+        TimeUnit.NANOSECONDS.sleep(Math.max(flushLatencyNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+      } else if (n < 0 || closing) {
+        break;
+      }
+    }
+
+    parser.finish();
+    return parser.count;
+  }
+
+  /**
+   * Incremental parser of the line based event format.
+   */
+  private class EdgeEventParser {
+    private final long[] chunk = new long[READ_CHUNK]; // parsed events not yet buffered.
+    private int size = 0; // number of events in the chunk.
+    private long count = 0; // number of events parsed.
+    private long line = 1; // current line number.
+    private int field = 0; // number of vertices read on the line.
+    private long value = 0; // number being read.
+    private boolean inNumber = false; // is a number being read?
+    private boolean signed = false; // did the line start with + or -?
+    private boolean afterSign = false; // was the sign the latest byte?
+    private boolean remove = false; // is the line a remove event?
+    private int vertex1 = 0; // first vertex of the line.
+    private int vertex2 = 0; // second vertex of the line.
+
+    /**
+     * This method is used to parse a block of bytes.
+     *
+     * @param bytes the bytes to parse.
+     * @param n     the number of bytes to parse.
+     * @throws IOException          if the bytes are not valid events.
+     * @throws InterruptedException if interrupted while the buffer is full.
+     */
+    void parse(byte[] bytes, int n) throws IOException, InterruptedException {
+      for (int i = 0; i < n; i++) {
+        byte b = bytes[i];
+
+        if (b >= '0' && b <= '9') {
+          if (afterSign) {
+            throw new IOException("Invalid edge event at line " + line);
+          }
+          value = value * 10 + (b - '0');
+          inNumber = true;
+          if (value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid vertex at line " + line);
+          }
+        } else if (b == ' ' || b == '\t' || b == '\r') {
+          endNumber();
+          afterSign = false;
+        } else if (b == '\n') {
+          endNumber();
+          endLine();
+        } else if ((b == '+' || b == '-') && !signed && !inNumber && field == 0) {
+          signed = true;
+          afterSign = true;
+          remove = b == '-';
+        } else {
+          throw new IOException("Invalid edge event at line " + line);
+        }
+      }
+    }
+
+    /**
+     * This method is used to move the parsed events into the buffer.
+     *
+     * @throws InterruptedException if interrupted while the buffer is full.
+     */
+    void flush() throws InterruptedException {
+      if (size > 0) {
+        buffer.putAll(chunk, size);
+        size = 0;
+      }
+    }
+
+    /**
+     * This method is used to end the stream, accepting a last line without a
+     * line break.
+     *
+     * @throws IOException          if the last line is not a valid event.
+     * @throws InterruptedException if interrupted while the buffer is full.
+     */
+    void finish() throws IOException, InterruptedException {
+      endNumber();
+      endLine();
+      flush();
+    }
+
+    /**
+     * This method is used to store the number being read as a vertex.
+     */
+    private void endNumber() {
+      if (!inNumber) {
+        return;
+      }
+
+      if (field == 0) {
+        vertex1 = (int) value;
+      } else if (field == 1) {
+        vertex2 = (int) value;
+      }
+      field++;
+      value = 0;
+      inNumber = false;
+    }
+
+    /**
+     * This method is used to emit the event of the current line.
+     *
+     * @throws IOException          if the line is not a valid event.
+     * @throws InterruptedException if interrupted while the buffer is full.
+     */
+    private void endLine() throws IOException, InterruptedException {
+      if (field == 2) {
+        chunk[size++] = EdgeEventRingBuffer.pack(remove, vertex1, vertex2);
+        count++;
+        if (size == chunk.length) {
+          flush();
+        }
+      } else if (field != 0 || signed) {
+        throw new IOException("Invalid edge event at line " + line);
+      }
+
+      field = 0;
+      signed = false;
+      afterSign = false;
+      remove = false;
+      line++;
+    }
+  }
+}
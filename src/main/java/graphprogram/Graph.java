@@ -9,12 +9,24 @@ import java.util.ArrayList;
  */
 public interface Graph {
 
+  public int getVertexCount();
+
+  public boolean isDirected();
+
+  public int addVertex();
+
+  public void removeVertex(int vertex);
+
+  public boolean isVertex(int vertex);
+
   public void addEdge(int vertex1, int vertex2);
 
   public void removeEdge(int vertex1, int vertex2);
 
   public boolean isEdge(int vertex1, int vertex2);
 
+  public int[] neighbors(int vertex);
+
   public String toString();
 
   public int vertexDegreeUndirectedGraph(int vertex);
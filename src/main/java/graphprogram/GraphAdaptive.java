@@ -0,0 +1,578 @@
+/******************************************************************************
+ *  Compilation:  javac GraphAdaptive.java
+ *  Execution:    java GraphAdaptive
+ *
+ *  A graph, implementing per vertex sorted arrays or bitset rows.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Density adaptive representation of a graph.
+ *
+ * <p>Every vertex keeps its neighbours either in a sorted {@code int} array or,
+ * once its degree passes the point where a row of the adjacency matrix is
+ * smaller, in a bitset row. Rows are converted online: a vertex is promoted to
+ * a bitset when its degree goes above {@code hubDegree} and demoted back to an
+ * array when it drops below half of that, so an edge flapping at the
+ * threshold does not convert the row every time.
+ *
+ * @author ev
+ */
+public class GraphAdaptive implements Graph {
+
+  public static final int MIN_HUB_DEGREE = 16; // smallest degree stored as a bitset.
+
+  private static final int INITIAL_ROW_CAPACITY = 4; // first size of a sorted array.
+  private static final int[] EMPTY_ROW = new int[0];
+
+  private int vertexCount = 0; // number of vertices.
+  private boolean isDirected = false; // is the graph directed?
+  private int hubDegree = MIN_HUB_DEGREE; // degree above which a row is a bitset.
+  private long edgeCount = 0; // number of stored adjacency entries.
+  private int[] degree = null; // outgoing degree of every vertex.
+  private int[] incomingDegree = null; // incoming degree of every vertex.
+  private int[][] sortedRows = null; // sorted neighbours of low degree vertices.
+  private long[][] bitRows = null; // bitset rows of hub vertices.
+  private VertexFreeList freeList = new VertexFreeList(); // removed vertices.
+
+  /**
+   * Initializes the adaptive rows.
+   */
+  public GraphAdaptive(int vertexCount, boolean isDirected) {
+    this.vertexCount = vertexCount;
+    this.isDirected = isDirected;
+    this.hubDegree = Math.max(MIN_HUB_DEGREE, vertexCount / 32);
+    this.degree = new int[vertexCount];
+    this.incomingDegree = new int[vertexCount];
+    this.sortedRows = new int[vertexCount][];
+    this.bitRows = new long[vertexCount][];
+
+    Arrays.fill(this.sortedRows, EMPTY_ROW);
+  }
+
+  public GraphAdaptive(int vertexCount, int[][] edges, boolean isDirected) {
+    this(vertexCount, isDirected); // call the other constructor.
+
+    for (int i = 0; i < edges.length; i++) {
+      if (edges[i].length > 2) {
+        throw new IllegalArgumentException("Invalid edge: " + edges[i][0] + " " + edges[i][1] + " " + edges[i][2]);
+      }
+
+      addEdge(edges[i][0], edges[i][1]);
+    }
+  }
+
+  /**
+   * Returns the number of vertices in the graph, including removed vertices
+   * whose ids were not reused yet.
+   *
+   * @return the number of vertices in the graph.
+   */
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Returns if the graph is directed.
+   *
+   * @return if the graph is directed.
+   */
+  public boolean isDirected() {
+    return isDirected;
+  }
+
+  /**
+   * Returns the number of stored adjacency entries, counting both directions
+   * of an undirected edge.
+   *
+   * @return the number of stored adjacency entries.
+   */
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Returns the fraction of possible adjacency entries that are stored.
+   *
+   * @return the edge density of the graph.
+   */
+  public double getDensity() {
+    if (vertexCount == 0) {
+      return 0;
+    }
+
+    return (double) edgeCount / ((double) vertexCount * vertexCount);
+  }
+
+  /**
+   * Returns the degree above which a vertex is stored as a bitset row.
+   *
+   * @return the hub degree.
+   */
+  public int getHubDegree() {
+    return hubDegree;
+  }
+
+  /**
+   * Returns if the vertex is currently stored as a bitset row.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex is a hub, false otherwise.
+   */
+  public boolean isHub(int vertex) {
+    checkVertex(vertex);
+    return bitRows[vertex] != null;
+  }
+
+  /**
+   * Adds a vertex, reusing the id of a removed vertex when there is one. The
+   * per vertex arrays grow geometrically.
+   *
+   * @return the id of the new vertex.
+   */
+  public int addVertex() {
+    int vertex = freeList.poll();
+
+    if (vertex >= 0) {
+      return vertex;
+    }
+
+    vertex = this.vertexCount;
+    if (vertex == degree.length) {
+      int capacity = Math.max(INITIAL_ROW_CAPACITY, vertex * 2);
+
+      degree = Arrays.copyOf(degree, capacity);
+      incomingDegree = Arrays.copyOf(incomingDegree, capacity);
+      bitRows = Arrays.copyOf(bitRows, capacity);
+      sortedRows = Arrays.copyOf(sortedRows, capacity);
+      Arrays.fill(sortedRows, vertex, capacity, EMPTY_ROW);
+    }
+
+    this.vertexCount++;
+    this.hubDegree = Math.max(MIN_HUB_DEGREE, this.vertexCount / 32);
+
+    return vertex;
+  }
+
+  /**
+   * Removes a vertex and all of its edges. The id is reused by a later
+   * {@link #addVertex}.
+   *
+   * @param vertex the vertex to remove.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public void removeVertex(int vertex) {
+    checkVertex(vertex);
+
+    for (int v : neighbors(vertex)) {
+      delete(vertex, v);
+      if (!this.isDirected) {
+        delete(v, vertex);
+      }
+    }
+
+    // the incoming edges of a directed graph are only found by scanning.
+    for (int i = 0; i < this.vertexCount && incomingDegree[vertex] > 0; i++) {
+      delete(i, vertex);
+    }
+
+    sortedRows[vertex] = EMPTY_ROW;
+    bitRows[vertex] = null;
+    freeList.add(vertex);
+  }
+
+  /**
+   * Checks if a vertex exists.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex exists, false otherwise.
+   */
+  public boolean isVertex(int vertex) {
+    return vertex >= 0 && vertex < this.vertexCount && !freeList.isRemoved(vertex);
+  }
+
+  /**
+   * Adds an edge between two vertices.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   */
+  public void addEdge(int vertex1, int vertex2) {
+    checkVertex(vertex1);
+    checkVertex(vertex2);
+
+    insert(vertex1, vertex2);
+    if (!this.isDirected && vertex1 != vertex2) {
+      insert(vertex2, vertex1);
+    }
+  }
+
+  /**
+   * Removes an edge between two vertices.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   */
+  public void removeEdge(int vertex1, int vertex2) {
+    checkVertex(vertex1);
+    checkVertex(vertex2);
+
+    delete(vertex1, vertex2);
+    if (!this.isDirected && vertex1 != vertex2) {
+      delete(vertex2, vertex1);
+    }
+  }
+
+  /**
+   * Checks if an edge exists between two vertices.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @return true if the edge exists, false otherwise.
+   */
+  public boolean isEdge(int vertex1, int vertex2) {
+    checkVertex(vertex1);
+    checkVertex(vertex2);
+
+    long[] bits = bitRows[vertex1];
+    if (bits != null) {
+      return vertex2 >>> 6 < bits.length && (bits[vertex2 >>> 6] & (1L << vertex2)) != 0;
+    }
+
+    return Arrays.binarySearch(sortedRows[vertex1], 0, degree[vertex1], vertex2) >= 0;
+  }
+
+  /**
+   * This method is used to print the adjacency rows.
+   *
+   * @return the adjacency rows.
+   */
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (freeList.isRemoved(i)) {
+        continue;
+      }
+
+      sb.append(i);
+      sb.append(bitRows[i] != null ? " [bitset]:" : " [array]:");
+      for (int v : neighbors(i)) {
+        sb.append(" ");
+        sb.append(v);
+      }
+      sb.append("\n");
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * This method is used to get the vertex degree undirected graph.
+   *
+   * @param vertex the vertex whose degree is to be found.
+   * @return the degree of the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public int vertexDegreeUndirectedGraph(int vertex) {
+    checkVertex(vertex);
+    return degree[vertex];
+  }
+
+  /**
+   * This method is used to get the overall vertex degree undirected graph.
+   */
+  public void overallVertexDegreeUndirectedGraph() {
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (freeList.isRemoved(i)) {
+        continue;
+      }
+
+      System.out.println("The degree of a vertex of the adaptive rows: " + degree[i]);
+    }
+  }
+
+  /**
+   * This method is used to get the vertex degree directed graph.
+   *
+   * @param vertex the vertex whose degree is to be found.
+   * @return the degree of the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public int vertexDegreeDirectedGraph(int vertex) {
+    checkVertex(vertex);
+    return incomingDegree[vertex] + degree[vertex];
+  }
+
+  /**
+   * This method is used to get the overall vertex degree directed graph.
+   */
+  public void overallVertexDegreeDirectedGraph() {
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (freeList.isRemoved(i)) {
+        continue;
+      }
+
+      System.out.println("Vertex " + i + ": " + incomingDegree[i] + " " + degree[i]);
+      System.out.println("Vertex " + i + ": " + (incomingDegree[i] + degree[i]));
+    }
+  }
+
+  /**
+   * This method is used to get the transversal DFS of the graph.
+   *
+   * @param vertex  the vertex whose transversal is to be found.
+   * @param visited the array of visited vertices.
+   * @return the transversal of the graph.
+   */
+  public ArrayList<Integer> transversalDfs(int vertex, int[] visited) {
+    ArrayList<Integer> transversal = new ArrayList<Integer>();
+
+    visited[vertex] = 1;
+    transversal.add(vertex);
+    System.out.println("Vertex: " + vertex);
+
+    for (int v : neighbors(vertex)) {
+      if (visited[v] == 0) {
+        transversal.addAll(transversalDfs(v, visited));
+      }
+    }
+
+    return transversal;
+  }
+
+  /**
+   * This method is used to get the transversal BFS of the graph.
+   *
+   * @param vertex the vertex whose transversal is to be found.
+   * @return the transversal of the graph.
+   */
+  public int[] transversalBfs(int vertex) {
+    int first = -1, latest = 0;
+    int[] queue = new int[this.vertexCount];
+    int[] visited = new int[this.vertexCount];
+
+    visited[vertex] = 1;
+    queue[latest] = vertex;
+
+    while (first != latest) {
+      first++;
+      vertex = queue[first];
+      System.out.println("Vertex: " + vertex);
+
+      long[] bits = bitRows[vertex];
+      if (bits != null) {
+        for (int w = 0; w < bits.length; w++) {
+          long word = bits[w];
+
+          while (word != 0) {
+            int v = (w << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+
+            if (visited[v] == 0) {
+              latest++;
+              visited[v] = 1;
+              queue[latest] = v;
+            }
+          }
+        }
+      } else {
+        int[] row = sortedRows[vertex];
+
+        for (int i = 0; i < degree[vertex]; i++) {
+          int v = row[i];
+
+          if (visited[v] == 0) {
+            latest++;
+            visited[v] = 1;
+            queue[latest] = v;
+          }
+        }
+      }
+    }
+
+    return queue;
+  }
+
+  /**
+   * This method is used to get the sorted neighbours of a vertex.
+   *
+   * @param vertex the vertex whose neighbours are to be found.
+   * @return the neighbours of the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public int[] neighbors(int vertex) {
+    checkVertex(vertex);
+
+    long[] bits = bitRows[vertex];
+
+    if (bits == null) {
+      return Arrays.copyOf(sortedRows[vertex], degree[vertex]);
+    }
+
+    int[] neighbors = new int[degree[vertex]];
+    int size = 0;
+
+    for (int w = 0; w < bits.length; w++) {
+      long word = bits[w];
+
+      while (word != 0) {
+        neighbors[size++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+
+    return neighbors;
+  }
+
+  /**
+   * This method is used to validate a vertex.
+   *
+   * @param vertex the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  private void checkVertex(int vertex) {
+    if (!isVertex(vertex)) {
+      throw new IllegalArgumentException("vertex " + vertex + " does not exist");
+    }
+  }
+
+  /**
+   * This method is used to add one adjacency entry, promoting the row to a
+   * bitset when its degree passes the hub degree.
+   *
+   * @param vertex1 the vertex owning the row.
+   * @param vertex2 the neighbour to add.
+   */
+  private void insert(int vertex1, int vertex2) {
+    long[] bits = bitRows[vertex1];
+
+    if (bits != null) {
+      long mask = 1L << vertex2;
+
+      if (vertex2 >>> 6 >= bits.length) {
+        bits = Arrays.copyOf(bits, Math.max(bits.length * 2, (vertex2 >>> 6) + 1));
+        bitRows[vertex1] = bits;
+      }
+      if ((bits[vertex2 >>> 6] & mask) == 0) {
+        bits[vertex2 >>> 6] |= mask;
+        added(vertex1, vertex2);
+      }
+      return;
+    }
+
+    int[] row = sortedRows[vertex1];
+    int size = degree[vertex1];
+    int index = Arrays.binarySearch(row, 0, size, vertex2);
+
+    if (index >= 0) {
+      return;
+    }
+
+    index = -index - 1;
+    if (size == row.length) {
+      row = Arrays.copyOf(row, Math.max(INITIAL_ROW_CAPACITY, size * 2));
+      sortedRows[vertex1] = row;
+    }
+    System.arraycopy(row, index, row, index + 1, size - index);
+    row[index] = vertex2;
+    added(vertex1, vertex2);
+
+    if (degree[vertex1] > hubDegree) {
+      promote(vertex1);
+    }
+  }
+
+  /**
+   * This method is used to remove one adjacency entry, demoting the row to a
+   * sorted array when its degree drops below half of the hub degree.
+   *
+   * @param vertex1 the vertex owning the row.
+   * @param vertex2 the neighbour to remove.
+   */
+  private void delete(int vertex1, int vertex2) {
+    long[] bits = bitRows[vertex1];
+
+    if (bits != null) {
+      long mask = 1L << vertex2;
+
+      if (vertex2 >>> 6 < bits.length && (bits[vertex2 >>> 6] & mask) != 0) {
+        bits[vertex2 >>> 6] &= ~mask;
+        removed(vertex1, vertex2);
+
+        if (degree[vertex1] < hubDegree / 2) {
+          demote(vertex1);
+        }
+      }
+      return;
+    }
+
+    int[] row = sortedRows[vertex1];
+    int size = degree[vertex1];
+    int index = Arrays.binarySearch(row, 0, size, vertex2);
+
+    if (index < 0) {
+      return;
+    }
+
+    System.arraycopy(row, index + 1, row, index, size - index - 1);
+    removed(vertex1, vertex2);
+  }
+
+  /**
+   * This method is used to count an added adjacency entry.
+   *
+   * @param vertex1 the vertex owning the row.
+   * @param vertex2 the added neighbour.
+   */
+  private void added(int vertex1, int vertex2) {
+    degree[vertex1]++;
+    incomingDegree[vertex2]++;
+    edgeCount++;
+  }
+
+  /**
+   * This method is used to count a removed adjacency entry.
+   *
+   * @param vertex1 the vertex owning the row.
+   * @param vertex2 the removed neighbour.
+   */
+  private void removed(int vertex1, int vertex2) {
+    degree[vertex1]--;
+    incomingDegree[vertex2]--;
+    edgeCount--;
+  }
+
+  /**
+   * This method is used to convert a sorted array row into a bitset row.
+   *
+   * @param vertex the vertex to convert.
+   */
+  private void promote(int vertex) {
+    int[] row = sortedRows[vertex];
+    long[] bits = new long[(this.vertexCount + 63) >>> 6];
+
+    for (int i = 0; i < degree[vertex]; i++) {
+      bits[row[i] >>> 6] |= 1L << row[i];
+    }
+
+    bitRows[vertex] = bits;
+    sortedRows[vertex] = EMPTY_ROW;
+  }
+
+  /**
+   * This method is used to convert a bitset row into a sorted array row.
+   *
+   * @param vertex the vertex to convert.
+   */
+  private void demote(int vertex) {
+    int[] row = neighbors(vertex);
+
+    sortedRows[vertex] = Arrays.copyOf(row, Math.max(INITIAL_ROW_CAPACITY, row.length * 2));
+    bitRows[vertex] = null;
+  }
+}
@@ -8,17 +8,22 @@
 package graphprogram;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * Adjacency matrix representation of a graph.
+ * Adjacency linked list representation of a graph.
+ *
+ * <p>Every vertex has its own linked list of neighbours, kept in ascending
+ * order. The array of list heads grows geometrically as vertices are added.
  *
  * @author ev
  */
 public class GraphAdjacencyLinkedList implements Graph {
 
   private int vertexCount = 0; // number of vertices.
-  private Node head; // head of the adjacency linked list.
+  private Node[] heads; // head of the adjacency linked list of every vertex.
   private boolean isDirected = false; // is the graph directed?
+  private VertexFreeList freeList = new VertexFreeList(); // removed vertices.
 
   /**
    * Initializes the adjacency linked list.
@@ -26,7 +31,7 @@ public class GraphAdjacencyLinkedList implements Graph {
   public GraphAdjacencyLinkedList(int vertexCount, boolean isDirected) {
     this.vertexCount = vertexCount;
     this.isDirected = isDirected;
-    this.head = new Node(this.vertexCount + 1);
+    this.heads = new Node[Math.max(1, this.vertexCount)];
   }
 
   public GraphAdjacencyLinkedList(int vertexCount, int[][] edges, boolean isDirected) {
@@ -42,26 +47,41 @@ public class GraphAdjacencyLinkedList implements Graph {
   }
 
   /**
-   * Returns the head of the adjacency linked list.
-   * 
-   * @return the head of the adjacency linked list.
+   * Returns the head of the adjacency linked list. Kept from when the graph
+   * had a single list; it is now the list of vertex 0, see
+   * {@link #getHead(int)}.
+   *
+   * @return the head of the adjacency linked list of vertex 0.
    */
   public Node getHead() {
-    return head;
+    return heads[0];
   }
 
   /**
-   * Sets the head of the adjacency linked list.
-   * 
-   * @param head the head of the adjacency linked list.
+   * Sets the head of the adjacency linked list. Kept from when the graph had
+   * a single list; it now replaces the list of vertex 0, which must stay in
+   * ascending order.
+   *
+   * @param head the head of the adjacency linked list of vertex 0.
    */
   public void setHead(Node head) {
-    this.head = head;
+    heads[0] = head;
+  }
+
+  /**
+   * Returns the head of the adjacency linked list of a vertex.
+   *
+   * @param vertex the vertex.
+   * @return the head of the adjacency linked list, or null if it is empty.
+   */
+  public Node getHead(int vertex) {
+    return heads[vertex];
   }
 
   /**
-   * Returns the number of vertices.
-   * 
+   * Returns the number of vertices, including removed vertices whose ids were
+   * not reused yet.
+   *
    * @return the number of vertices.
    */
   public int getVertexCount() {
@@ -70,16 +90,19 @@ public class GraphAdjacencyLinkedList implements Graph {
 
   /**
    * Sets the number of vertices.
-   * 
+   *
    * @param vertexCount the number of vertices.
    */
   public void setVertexCount(int vertexCount) {
+    if (vertexCount > heads.length) {
+      heads = Arrays.copyOf(heads, Math.max(heads.length * 2, vertexCount));
+    }
     this.vertexCount = vertexCount;
   }
 
   /**
    * Returns if the graph is directed.
-   * 
+   *
    * @return if the graph is directed.
    */
   public boolean isDirected() {
@@ -88,7 +111,7 @@ public class GraphAdjacencyLinkedList implements Graph {
 
   /**
    * Sets if the graph is directed.
-   * 
+   *
    * @param isDirected if the graph is directed.
    */
   public void setDirected(boolean isDirected) {
@@ -106,27 +129,70 @@ public class GraphAdjacencyLinkedList implements Graph {
     return vertex1 == vertex2;
   }
 
+  /**
+   * Adds a vertex, reusing the id of a removed vertex when there is one.
+   *
+   * @return the id of the new vertex.
+   */
+  public int addVertex() {
+    int vertex = freeList.poll();
+
+    if (vertex < 0) {
+      vertex = this.vertexCount;
+      setVertexCount(this.vertexCount + 1);
+    }
+
+    return vertex;
+  }
+
+  /**
+   * Removes a vertex and all of its edges. The id is reused by a later
+   * {@link #addVertex}.
+   *
+   * @param vertex the vertex to remove.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public void removeVertex(int vertex) {
+    if (!isVertex(vertex)) {
+      throw new IllegalArgumentException("Invalid vertex: " + vertex);
+    }
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      unlink(i, vertex);
+    }
+    heads[vertex] = null;
+
+    freeList.add(vertex);
+  }
+
+  /**
+   * Checks if a vertex exists.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex exists, false otherwise.
+   */
+  public boolean isVertex(int vertex) {
+    return vertex >= 0 && vertex < this.vertexCount && !freeList.isRemoved(vertex);
+  }
+
   /**
    * Adds an edge between two vertices.
    *
    * @param vertex1 the first vertex.
    * @param vertex2 the second vertex.
+   * @throws IllegalArgumentException if a vertex does not exist.
    */
   public void addEdge(int vertex1, int vertex2) {
     if (isCircular(vertex1, vertex2)) {
       return;
     }
+    if (!isVertex(vertex1) || !isVertex(vertex2)) {
+      throw new IllegalArgumentException("Invalid edge: " + vertex1 + " " + vertex2);
+    }
 
-    Node temp = this.head;
-    Node newNode = new Node(vertex2);
-
-    while (temp.getNext() != null) {
-      if (temp.getVertex() == vertex1) {
-        newNode.setNext(temp.getNext());
-        temp.setNext(newNode);
-        break;
-      }
-      temp = temp.getNext();
+    link(vertex1, vertex2);
+    if (!this.isDirected) {
+      link(vertex2, vertex1);
     }
   }
 
@@ -137,26 +203,13 @@ public class GraphAdjacencyLinkedList implements Graph {
    * @param vertex2 the second vertex.
    */
   public void removeEdge(int vertex1, int vertex2) {
-    if (isCircular(vertex1, vertex2)) {
+    if (isCircular(vertex1, vertex2) || !isVertex(vertex1) || !isVertex(vertex2)) {
       return;
     }
 
-    Node temp = this.head;
-
-    while (temp.getNext() != null) {
-      if (temp.getVertex() == vertex1) {
-        Node temp2 = temp.getNext();
-
-        while (temp2.getNext() != null) {
-          if (temp2.getVertex() == vertex2) {
-            temp.setNext(temp2.getNext());
-            break;
-          }
-          temp2 = temp2.getNext();
-        }
-        break;
-      }
-      temp = temp.getNext();
+    unlink(vertex1, vertex2);
+    if (!this.isDirected) {
+      unlink(vertex2, vertex1);
     }
   }
 
@@ -168,27 +221,40 @@ public class GraphAdjacencyLinkedList implements Graph {
    * @return true if the edge exists, false otherwise.
    */
   public boolean isEdge(int vertex1, int vertex2) {
-    if (isCircular(vertex1, vertex2)) {
+    if (isCircular(vertex1, vertex2) || !isVertex(vertex1)) {
       return false;
     }
 
-    Node temp = head;
+    Node temp = heads[vertex1];
 
-    while (temp.getNext() != null) {
-      if (temp.getVertex() == vertex1) {
-        Node temp2 = temp.getNext();
-        while (temp2.getNext() != null) {
-          if (temp2.getVertex() == vertex2) {
-            return true;
-          }
-          temp2 = temp2.getNext();
-        }
-        break;
-      }
+    while (temp != null && temp.getVertex() < vertex2) {
+      temp = temp.getNext();
+    }
+
+    return temp != null && temp.getVertex() == vertex2;
+  }
+
+  /**
+   * This method is used to get the neighbours of a vertex.
+   *
+   * @param vertex the vertex whose neighbours are to be found.
+   * @return the neighbours of the vertex, in ascending order.
+   */
+  public int[] neighbors(int vertex) {
+    int degree = 0;
+    Node temp = heads[vertex];
+
+    for (Node node = temp; node != null; node = node.getNext()) {
+      degree++;
+    }
+
+    int[] neighbors = new int[degree];
+    for (int i = 0; temp != null; i++) {
+      neighbors[i] = temp.getVertex();
       temp = temp.getNext();
     }
 
-    return false;
+    return neighbors;
   }
 
   /**
@@ -198,15 +264,22 @@ public class GraphAdjacencyLinkedList implements Graph {
    */
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    Node temp = head;
 
-    while (temp.getNext() != null) {
-      sb.append(temp.getVertex());
-      sb.append(" -> ");
-      temp = temp.getNext();
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (freeList.isRemoved(i)) {
+        continue;
+      }
+
+      Node temp = heads[i];
+
+      sb.append(i);
+      while (temp != null) {
+        sb.append(" -> ");
+        sb.append(temp.getVertex());
+        temp = temp.getNext();
+      }
+      sb.append(" -> null\n");
     }
-    sb.append(temp.getVertex());
-    sb.append(" -> null");
 
     return sb.toString();
   }
@@ -219,17 +292,15 @@ public class GraphAdjacencyLinkedList implements Graph {
    * @throws IllegalArgumentException if the vertex does not exist.
    */
   public int vertexDegreeUndirectedGraph(int vertex) {
-    if (vertex < 1 || vertex > this.vertexCount) {
+    if (!isVertex(vertex)) {
       throw new IllegalArgumentException("Invalid vertex: " + vertex);
     }
 
-    Node temp = head;
+    Node temp = heads[vertex];
     int degree = 0;
 
-    while (temp.getNext() != null) {
-      if (temp.getVertex() == vertex) {
-        degree++;
-      }
+    while (temp != null) {
+      degree++;
       temp = temp.getNext();
     }
 
@@ -240,15 +311,14 @@ public class GraphAdjacencyLinkedList implements Graph {
    * This method is used to get the overall vertex degree undirected graph.
    */
   public void overallVertexDegreeUndirectedGraph() {
-    Node temp = head;
     int degree = 0;
 
-    while (temp.getNext() != null) {
-      degree += vertexDegreeUndirectedGraph(temp.getVertex());
-      temp = temp.getNext();
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (isVertex(i)) {
+        degree += vertexDegreeUndirectedGraph(i);
+      }
     }
 
-    degree += vertexDegreeUndirectedGraph(temp.getVertex());
     System.out.println("Overall vertex degree: " + degree);
   }
 
@@ -260,18 +330,12 @@ public class GraphAdjacencyLinkedList implements Graph {
    * @throws IllegalArgumentException if the vertex does not exist.
    */
   public int vertexDegreeDirectedGraph(int vertex) {
-    if (vertex < 1 || vertex > this.vertexCount) {
-      throw new IllegalArgumentException("Invalid vertex: " + vertex);
-    }
-
-    Node temp = head;
-    int degree = 0;
+    int degree = vertexDegreeUndirectedGraph(vertex); // outgoing edges
 
-    while (temp.getNext() != null) {
-      if (temp.getVertex() == vertex) {
-        degree++;
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (isEdge(i, vertex)) {
+        degree++; // incoming edges
       }
-      temp = temp.getNext();
     }
 
     return degree;
@@ -281,15 +345,14 @@ public class GraphAdjacencyLinkedList implements Graph {
    * This method is used to get the overall vertex degree directed graph.
    */
   public void overallVertexDegreeDirectedGraph() {
-    Node temp = head;
     int degree = 0;
 
-    while (temp.getNext() != null) {
-      degree += vertexDegreeDirectedGraph(temp.getVertex()); // incoming and outgoing edges
-      temp = temp.getNext();
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (isVertex(i)) {
+        degree += vertexDegreeDirectedGraph(i); // incoming and outgoing edges
+      }
     }
 
-    degree += vertexDegreeDirectedGraph(temp.getVertex());
     System.out.println("Overall vertex degree: " + degree);
   }
 
@@ -302,10 +365,11 @@ public class GraphAdjacencyLinkedList implements Graph {
    */
   public ArrayList<Integer> transversalDfs(int vertex, int[] visited) {
     int v;
-    Node temp = head;
+    Node temp = heads[vertex];
     ArrayList<Integer> transversal = new ArrayList<>();
 
     visited[vertex] = 1;
+    transversal.add(vertex);
     System.out.print(vertex + " ");
 
     while (temp != null) {
@@ -339,7 +403,7 @@ public class GraphAdjacencyLinkedList implements Graph {
     while (first != latest) {
       first++;
       vertex = queue[first];
-      temp = head;
+      temp = heads[vertex];
 
       System.out.println("Vertex: " + vertex);
 
@@ -358,6 +422,61 @@ public class GraphAdjacencyLinkedList implements Graph {
 
     return queue;
   }
+
+  /**
+   * This method is used to insert a neighbour into the sorted list of a
+   * vertex, unless it is already there.
+   *
+   * @param vertex1 the vertex owning the list.
+   * @param vertex2 the neighbour to insert.
+   */
+  private void link(int vertex1, int vertex2) {
+    Node previous = null;
+    Node temp = heads[vertex1];
+
+    while (temp != null && temp.getVertex() < vertex2) {
+      previous = temp;
+      temp = temp.getNext();
+    }
+
+    if (temp != null && temp.getVertex() == vertex2) {
+      return;
+    }
+
+    Node newNode = new Node(vertex2);
+    newNode.setNext(temp);
+    if (previous == null) {
+      heads[vertex1] = newNode;
+    } else {
+      previous.setNext(newNode);
+    }
+  }
+
+  /**
+   * This method is used to remove a neighbour from the list of a vertex.
+   *
+   * @param vertex1 the vertex owning the list.
+   * @param vertex2 the neighbour to remove.
+   */
+  private void unlink(int vertex1, int vertex2) {
+    Node previous = null;
+    Node temp = heads[vertex1];
+
+    while (temp != null && temp.getVertex() < vertex2) {
+      previous = temp;
+      temp = temp.getNext();
+    }
+
+    if (temp == null || temp.getVertex() != vertex2) {
+      return;
+    }
+
+    if (previous == null) {
+      heads[vertex1] = temp.getNext();
+    } else {
+      previous.setNext(temp.getNext());
+    }
+  }
 }
 
 /**
@@ -413,4 +532,4 @@ class Node {
   public void setNext(Node next) {
     this.next = next;
   }
-}
\ No newline at end of file
+}
@@ -8,17 +8,27 @@
 package graphprogram;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Adjacency matrix representation of a graph.
  *
+ * <p>The matrix is stored in 64 x 64 bit tiles, allocated when the first edge
+ * lands in them. Growing the matrix only copies the tile directory, never the
+ * bits, and doubles it so adding vertices one by one is amortized.
+ *
  * @author ev
  */
 public class GraphAdjacencyMatrix implements Graph {
 
+  private static final int TILE_BITS = 6; // log2 of the tile side.
+  private static final int TILE_MASK = (1 << TILE_BITS) - 1; // position inside a tile.
+
   private int vertexCount = 0; // number of vertices.
-  private int[][] adjacencyMatrix = null; // adjacency matrix.
+  private long[][][] tiles = null; // tiles of the adjacency matrix, by tile row and column.
+  private int capacity = 0; // number of rows and columns the tiles cover.
   private boolean isDirected = false; // is the graph directed?
+  private VertexFreeList freeList = new VertexFreeList(); // removed vertices.
 
   /**
    * Initializes the adjacency matrix.
@@ -26,13 +36,9 @@ public class GraphAdjacencyMatrix implements Graph {
   public GraphAdjacencyMatrix(int vertexCount, boolean isDirected) {
     this.vertexCount = vertexCount;
     this.isDirected = isDirected;
-    adjacencyMatrix = new int[this.vertexCount + 1][this.vertexCount + 1];
+    this.tiles = new long[0][][];
 
-    for (int i = 1; i <= this.vertexCount; i++) {
-      for (int j = 1; j <= this.vertexCount; j++) {
-        adjacencyMatrix[i][j] = 0;
-      }
-    }
+    ensureCapacity(this.vertexCount + 1);
   }
 
   public GraphAdjacencyMatrix(int vertexCount, int[][] edges, boolean isDirected) {
@@ -48,7 +54,8 @@ public class GraphAdjacencyMatrix implements Graph {
   }
 
   /**
-   * Returns the number of vertices in the graph.
+   * Returns the number of vertices in the graph, including removed vertices
+   * whose ids were not reused yet.
    *
    * @return the number of vertices in the graph.
    */
@@ -62,37 +69,98 @@ public class GraphAdjacencyMatrix implements Graph {
    * @param vertexCount the number of vertices in the graph.
    */
   public void setVertexCount(int vertexCount) {
+    ensureCapacity(vertexCount + 1);
     this.vertexCount = vertexCount;
   }
 
   /**
    * Returns the if the graph is directed.
-   * 
+   *
    * @return the if the graph is directed.
    */
   public boolean getIsDirected() {
     return isDirected;
   }
 
+  /**
+   * Returns if the graph is directed.
+   *
+   * @return if the graph is directed.
+   */
+  public boolean isDirected() {
+    return isDirected;
+  }
+
   /**
    * Sets the if the graph is directed.
-   * 
+   *
    * @param isDirected the if the graph is directed.
    */
   public void setDirected(boolean isDirected) {
     this.isDirected = isDirected;
   }
 
+  /**
+   * Adds a vertex, reusing the id of a removed vertex when there is one.
+   *
+   * @return the id of the new vertex.
+   */
+  public int addVertex() {
+    int vertex = freeList.poll();
+
+    if (vertex < 0) {
+      vertex = this.vertexCount;
+      setVertexCount(this.vertexCount + 1);
+    }
+
+    return vertex;
+  }
+
+  /**
+   * Removes a vertex and all of its edges. The id is reused by a later
+   * {@link #addVertex}.
+   *
+   * @param vertex the vertex to remove.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public void removeVertex(int vertex) {
+    if (!isVertex(vertex)) {
+      throw new IllegalArgumentException("vertex " + vertex + " does not exist");
+    }
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      clear(vertex, i);
+      clear(i, vertex);
+    }
+
+    freeList.add(vertex);
+  }
+
+  /**
+   * Checks if a vertex exists.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex exists, false otherwise.
+   */
+  public boolean isVertex(int vertex) {
+    return vertex >= 0 && vertex < this.vertexCount && !freeList.isRemoved(vertex);
+  }
+
   /**
    * Adds an edge between two vertices.
    *
    * @param vertex1 the first vertex.
    * @param vertex2 the second vertex.
+   * @throws IllegalArgumentException if a vertex does not exist.
    */
   public void addEdge(int vertex1, int vertex2) {
-    adjacencyMatrix[vertex1][vertex2] = 1;
+    if (!isVertex(vertex1) || !isVertex(vertex2)) {
+      throw new IllegalArgumentException("Invalid edge: " + vertex1 + " " + vertex2);
+    }
+
+    set(vertex1, vertex2);
     if (!this.isDirected) {
-      this.adjacencyMatrix[vertex2][vertex1] = 1;
+      set(vertex2, vertex1);
     }
   }
 
@@ -101,14 +169,19 @@ public class GraphAdjacencyMatrix implements Graph {
    *
    * @param vertex1 the first vertex.
    * @param vertex2 the second vertex.
+   * @throws IllegalArgumentException if a vertex does not exist.
    */
   public void removeEdge(int vertex1, int vertex2) {
-    if (this.adjacencyMatrix[vertex1][vertex2] == 1) {
-      this.adjacencyMatrix[vertex1][vertex2] = 0;
+    if (!isVertex(vertex1) || !isVertex(vertex2)) {
+      throw new IllegalArgumentException("Invalid edge: " + vertex1 + " " + vertex2);
+    }
+
+    if (get(vertex1, vertex2)) {
+      clear(vertex1, vertex2);
 
       // if the graph is not directed, remove the edge in the other direction as well.
       if (!this.isDirected) {
-        this.adjacencyMatrix[vertex2][vertex1] = 0;
+        clear(vertex2, vertex1);
       }
     }
   }
@@ -121,7 +194,42 @@ public class GraphAdjacencyMatrix implements Graph {
    * @return true if the edge exists, false otherwise.
    */
   public boolean isEdge(int vertex1, int vertex2) {
-    return this.adjacencyMatrix[vertex1][vertex2] == 1;
+    return get(vertex1, vertex2);
+  }
+
+  /**
+   * This method is used to get the neighbours of a vertex.
+   *
+   * @param vertex the vertex whose neighbours are to be found.
+   * @return the neighbours of the vertex, in ascending order.
+   */
+  public int[] neighbors(int vertex) {
+    long[][] row = this.tiles[vertex >>> TILE_BITS];
+    int degree = 0;
+
+    // count first, so the result is allocated at its exact size.
+    for (int t = 0; t < row.length; t++) {
+      if (row[t] != null) {
+        degree += Long.bitCount(row[t][vertex & TILE_MASK]);
+      }
+    }
+
+    int[] neighbors = new int[degree];
+    int i = 0;
+
+    for (int t = 0; t < row.length && i < degree; t++) {
+      if (row[t] == null) {
+        continue;
+      }
+
+      long word = row[t][vertex & TILE_MASK];
+      while (word != 0) {
+        neighbors[i++] = (t << TILE_BITS) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+
+    return neighbors;
   }
 
   /**
@@ -134,7 +242,7 @@ public class GraphAdjacencyMatrix implements Graph {
 
     for (int i = 0; i < this.vertexCount; i++) {
       for (int j = 0; j < this.vertexCount; j++) {
-        sb.append(this.adjacencyMatrix[i][j]);
+        sb.append(get(i, j) ? 1 : 0);
         sb.append(" ");
       }
       sb.append("\n");
@@ -153,12 +261,12 @@ public class GraphAdjacencyMatrix implements Graph {
   public int vertexDegreeUndirectedGraph(int vertex) {
     int degree = 0;
 
-    if (vertex < 0 || vertex > this.vertexCount) {
+    if (vertex < 0 || vertex > this.vertexCount || freeList.isRemoved(vertex)) {
       throw new IllegalArgumentException("vertex " + vertex + " does not exist");
     }
 
     for (int i = 0; i < this.vertexCount; i++) {
-      if (this.adjacencyMatrix[vertex][i] == 1) {
+      if (get(vertex, i)) {
         degree++;
       }
     }
@@ -171,10 +279,14 @@ public class GraphAdjacencyMatrix implements Graph {
    */
   public void overallVertexDegreeUndirectedGraph() {
     for (int i = 0; i < this.vertexCount; i++) {
+      if (freeList.isRemoved(i)) {
+        continue;
+      }
+
       int degree = 0;
 
       for (int j = 0; j < this.vertexCount; j++) {
-        if (adjacencyMatrix[i][j] == 1) {
+        if (get(i, j)) {
           degree++;
         }
       }
@@ -194,15 +306,15 @@ public class GraphAdjacencyMatrix implements Graph {
     int outgoingDegree = 0;
     int incomingDegree = 0;
 
-    if (vertex < 0 || vertex > this.vertexCount) {
+    if (vertex < 0 || vertex > this.vertexCount || freeList.isRemoved(vertex)) {
       throw new IllegalArgumentException("vertex " + vertex + " does not exist");
     }
 
     for (int i = 0; i < this.vertexCount; i++) {
-      if (this.adjacencyMatrix[vertex][i] == 1) {
+      if (get(vertex, i)) {
         incomingDegree++;
       }
-      if (this.adjacencyMatrix[i][vertex] == 1) {
+      if (get(i, vertex)) {
         outgoingDegree++;
       }
     }
@@ -215,15 +327,19 @@ public class GraphAdjacencyMatrix implements Graph {
    */
   public void overallVertexDegreeDirectedGraph() {
     for (int i = 0; i < this.vertexCount; i++) {
+      if (freeList.isRemoved(i)) {
+        continue;
+      }
+
       int overallDegree = 0;
       int incomingDegree = 0;
       int outgoingDegree = 0;
 
       for (int j = 0; j < this.vertexCount; j++) {
-        if (this.adjacencyMatrix[i][j] == 1) {
+        if (get(i, j)) {
           incomingDegree++;
         }
-        if (this.adjacencyMatrix[j][i] == 1) {
+        if (get(j, i)) {
           outgoingDegree++;
         }
       }
@@ -250,7 +366,7 @@ public class GraphAdjacencyMatrix implements Graph {
     System.out.println("Vertex: " + vertex);
 
     for (int i = 0; i < this.vertexCount; i++) {
-      if (this.adjacencyMatrix[vertex][i] == 1 && visited[i] == 0) {
+      if (get(vertex, i) && visited[i] == 0) {
         transversal.addAll(transversalDfs(i, visited));
       }
     }
@@ -262,7 +378,7 @@ public class GraphAdjacencyMatrix implements Graph {
    * This method is used to get the transversal BFS of the graph.
    *
    * @param vertex the vertex whose transversal is to be found.
-   * @return the transversal of the graph. 
+   * @return the transversal of the graph.
    */
   public int[] transversalBfs(int vertex) {
     int first = -1, latest = 0;
@@ -278,7 +394,7 @@ public class GraphAdjacencyMatrix implements Graph {
       System.out.println("Vertex: " + vertex);
 
       for (int i = 0; i < this.vertexCount; i++) {
-        if (this.adjacencyMatrix[vertex][i] == 1 && visited[i] == 0) {
+        if (get(vertex, i) && visited[i] == 0) {
           latest++;
           visited[i] = 1;
           queue[latest] = i;
@@ -288,4 +404,68 @@ public class GraphAdjacencyMatrix implements Graph {
 
     return queue;
   }
+
+  /**
+   * This method is used to grow the tile directory to cover a number of rows
+   * and columns. Existing tiles are kept, only their references are copied.
+   *
+   * @param size the number of rows and columns to cover.
+   */
+  private void ensureCapacity(int size) {
+    if (size <= this.capacity) {
+      return;
+    }
+
+    int tileCount = Math.max(this.tiles.length * 2, (size + TILE_MASK) >>> TILE_BITS);
+
+    this.tiles = Arrays.copyOf(this.tiles, tileCount);
+    for (int t = 0; t < tileCount; t++) {
+      this.tiles[t] = this.tiles[t] == null ? new long[tileCount][] : Arrays.copyOf(this.tiles[t], tileCount);
+    }
+    this.capacity = tileCount << TILE_BITS;
+  }
+
+  /**
+   * This method is used to read one cell of the matrix.
+   *
+   * @param row    the row.
+   * @param column the column.
+   * @return true if the cell is set, false otherwise.
+   */
+  private boolean get(int row, int column) {
+    long[] tile = this.tiles[row >>> TILE_BITS][column >>> TILE_BITS];
+
+    return tile != null && (tile[row & TILE_MASK] & (1L << column)) != 0;
+  }
+
+  /**
+   * This method is used to set one cell of the matrix.
+   *
+   * @param row    the row.
+   * @param column the column.
+   */
+  private void set(int row, int column) {
+    long[][] tileRow = this.tiles[row >>> TILE_BITS];
+    long[] tile = tileRow[column >>> TILE_BITS];
+
+    if (tile == null) {
+      tile = new long[1 << TILE_BITS];
+      tileRow[column >>> TILE_BITS] = tile;
+    }
+    tile[row & TILE_MASK] |= 1L << column;
+  }
+
+  /**
+   * This method is used to clear one cell of the matrix.
+   *
+   * @param row    the row.
+   * @param column the column.
+   */
+  private void clear(int row, int column) {
+    long[] tile = this.tiles[row >>> TILE_BITS][column >>> TILE_BITS];
+
+    if (tile != null) {
+      tile[row & TILE_MASK] &= ~(1L << column);
+    }
+  }
 }
@@ -0,0 +1,230 @@
+/******************************************************************************
+ *  Compilation:  javac GraphBenchmark.java
+ *  Execution:    java GraphBenchmark
+ *
+ *  Throughput measurements of the graph pipelines.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@code GraphBenchmark} class prints throughput numbers of the graph
+ * pipelines.
+ *
+ * @author ev
+ */
+public class GraphBenchmark {
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the command-line arguments
+   * @throws IOException if a benchmark fails.
+   */
+  public static void main(String[] args) throws IOException {
+    int vertexCount = 2000;
+    int eventCount = 2_000_000;
+
+    benchmarkIngestion(vertexCount, eventCount);
+    benchmarkIsEdge(vertexCount, 20 * vertexCount, 5_000_000);
+    benchmarkShortestPath(100_000, 2_000);
+    benchmarkRandomWalks(100_000, 10, 80);
+    benchmarkDurability(100_000, 16, 20_000);
+  }
+
+  /**
+   * This method is used to measure the sustained edge ingestion rate.
+   *
+   * @param vertexCount the number of vertices.
+   * @param eventCount  the number of edge events.
+   * @throws IOException if the ingestion fails.
+   */
+  static void benchmarkIngestion(int vertexCount, int eventCount) throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < eventCount; i++) {
+      sb.append(random.nextInt(10) == 0 ? "- " : "+ ");
+      sb.append(random.nextInt(vertexCount));
+      sb.append(' ');
+      sb.append(random.nextInt(vertexCount));
+      sb.append('\n');
+    }
+
+    byte[] events = sb.toString().getBytes(StandardCharsets.US_ASCII);
+    Graph graph = new GraphAdjacencyMatrix(vertexCount, true);
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph);
+
+    ingestor.ingest(new ByteArrayInputStream(events));
+    ingestor.close();
+
+    System.out.printf("Ingestion: %d events in %d batches, %.0f events/s%n", ingestor.getAppliedEvents(),
+        ingestor.getAppliedBatches(), ingestor.getEventsPerSecond());
+  }
+
+  /**
+   * This method is used to compare edge lookups of the matrix and the
+   * adaptive rows on a graph with a few hub vertices.
+   *
+   * @param vertexCount the number of vertices.
+   * @param edgeCount   the number of edges.
+   * @param queryCount  the number of lookups.
+   */
+  static void benchmarkIsEdge(int vertexCount, int edgeCount, int queryCount) {
+    SplittableRandom random = new SplittableRandom(42);
+    int[][] edges = new int[edgeCount][];
+
+    for (int i = 0; i < edgeCount; i++) {
+      int hub = random.nextInt(4) == 0 ? random.nextInt(16) : random.nextInt(vertexCount);
+      edges[i] = new int[] { hub, random.nextInt(vertexCount) };
+    }
+
+    Graph[] graphs = { new GraphAdjacencyMatrix(vertexCount, edges, false),
+        new GraphAdaptive(vertexCount, edges, false) };
+
+    for (Graph graph : graphs) {
+      SplittableRandom queries = new SplittableRandom(7);
+      int found = 0;
+      long start = System.nanoTime();
+
+      for (int i = 0; i < queryCount; i++) {
+        if (graph.isEdge(queries.nextInt(vertexCount), queries.nextInt(vertexCount))) {
+          found++;
+        }
+      }
+
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("isEdge %s: %.0f lookups/s (%d found)%n", graph.getClass().getSimpleName(),
+          queryCount * 1e9 / elapsed, found);
+    }
+  }
+
+  /**
+   * This method is used to measure point to point shortest path queries on a
+   * sparse graph.
+   *
+   * @param vertexCount the number of vertices.
+   * @param queryCount  the number of queries.
+   */
+  static void benchmarkShortestPath(int vertexCount, int queryCount) {
+    SplittableRandom random = new SplittableRandom(42);
+    int[][] edges = new int[4 * vertexCount][];
+
+    for (int i = 0; i < edges.length; i++) {
+      edges[i] = new int[] { random.nextInt(vertexCount), random.nextInt(vertexCount) };
+    }
+
+    BidirectionalBfs search = new BidirectionalBfs(new GraphCompressed(vertexCount, edges, false));
+    long hops = 0;
+    long start = System.nanoTime();
+
+    for (int i = 0; i < queryCount; i++) {
+      hops += Math.max(0, search.distance(random.nextInt(vertexCount), random.nextInt(vertexCount)));
+    }
+
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("Shortest path: %.0f queries/s, %.2f average hops%n", queryCount * 1e9 / elapsed,
+        (double) hops / queryCount);
+  }
+
+  /**
+   * This method is used to measure parallel node2vec walks on a sparse graph.
+   *
+   * @param vertexCount    the number of vertices.
+   * @param walksPerVertex the number of walks started at every vertex.
+   * @param length         the number of vertices of every walk.
+   */
+  static void benchmarkRandomWalks(int vertexCount, int walksPerVertex, int length) {
+    SplittableRandom random = new SplittableRandom(42);
+    int[][] edges = new int[8 * vertexCount][];
+
+    for (int i = 0; i < edges.length; i++) {
+      edges[i] = new int[] { random.nextInt(vertexCount), random.nextInt(vertexCount) };
+    }
+
+    RandomWalkSampler sampler = new RandomWalkSampler(new GraphCompressed(vertexCount, edges, false),
+        (u, v) -> 1 + (u ^ v) % 3, 0.5, 2);
+    int threads = Runtime.getRuntime().availableProcessors();
+    long start = System.nanoTime();
+    int[] walks = sampler.walks(walksPerVertex, length, 42, threads);
+    long elapsed = System.nanoTime() - start;
+
+    System.out.printf("Random walks: %.0f steps/s on %d threads%n", walks.length * 1e9 / elapsed, threads);
+  }
+
+  /**
+   * This method is used to measure mutations per second with every mutation
+   * waiting for its fsync, and the time to recover from the log and from a
+   * checkpoint.
+   *
+   * @param vertexCount the number of vertices.
+   * @param writers     the number of concurrent writers.
+   * @param mutations   the number of mutations.
+   * @throws IOException if the log cannot be written or read.
+   */
+  static void benchmarkDurability(int vertexCount, int writers, int mutations) throws IOException {
+    Path directory = Files.createTempDirectory("durable");
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+
+    try {
+      try (DurableGraph graph = new DurableGraph(directory, vertexCount, false, GraphAdaptive::new, true, 0, 0)) {
+        ArrayList<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int w = 0; w < writers; w++) {
+          SplittableRandom random = new SplittableRandom(w);
+          int count = mutations / writers;
+
+          results.add(pool.submit(() -> {
+            for (int i = 0; i < count; i++) {
+              graph.addEdge(random.nextInt(vertexCount), random.nextInt(vertexCount));
+            }
+          }));
+        }
+        for (Future<?> result : results) {
+          result.get();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Durable mutations: %.0f/s with fsync, %d writers, %.1f records per fsync%n",
+            mutations * 1e9 / elapsed, writers, (double) mutations / graph.getSyncCount());
+      }
+
+      try (DurableGraph graph = new DurableGraph(directory, vertexCount, false, GraphAdaptive::new, true, 0, 0)) {
+        System.out.printf("Recovery from log: %d records in %.1f ms%n", graph.getRecoveredRecords(),
+            graph.getRecoveryNanos() / 1e6);
+        graph.checkpoint();
+      }
+
+      try (DurableGraph graph = new DurableGraph(directory, vertexCount, false, GraphAdaptive::new, true, 0, 0)) {
+        System.out.printf("Recovery from checkpoint: %.1f ms%n", graph.getRecoveryNanos() / 1e6);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while benchmarking", e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path file : files) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(directory);
+    }
+  }
+}
@@ -0,0 +1,230 @@
+/******************************************************************************
+ *  Compilation:  javac GraphClient.java
+ *  Execution:    java GraphClient
+ *
+ *  A client of the graph query server.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Client of the {@link GraphServer} protocol.
+ *
+ * <p>{@link #send} only buffers a request, so several requests can be
+ * pipelined before a {@link #flush} and their responses read back in order
+ * with {@link #receive}. The blocking helpers send a single request and wait
+ * for its answer.
+ *
+ * @author ev
+ */
+public class GraphClient implements AutoCloseable {
+
+  private final Socket socket; // connection to the server.
+  private final DataInputStream in; // buffered responses.
+  private final DataOutputStream out; // buffered requests.
+  private int nextId = 0; // id of the next request.
+
+  /**
+   * Initializes the client connected to a local server.
+   *
+   * @param port the port of the server.
+   * @throws IOException if the connection fails.
+   */
+  public GraphClient(int port) throws IOException {
+    this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    this.socket.setTcpNoDelay(true);
+    this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 8192));
+    this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 8192));
+  }
+
+  /**
+   * This method is used to buffer a request.
+   *
+   * @param opcode    the request type.
+   * @param argument1 the first argument.
+   * @param argument2 the second argument.
+   * @return the id of the request.
+   * @throws IOException if the request cannot be written.
+   */
+  public int send(byte opcode, int argument1, int argument2) throws IOException {
+    int id = nextId++;
+
+    out.writeByte(opcode);
+    out.writeInt(id);
+    out.writeInt(argument1);
+    out.writeInt(argument2);
+
+    return id;
+  }
+
+  /**
+   * This method is used to send the buffered requests.
+   *
+   * @throws IOException if the requests cannot be written.
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * This method is used to read the next response.
+   *
+   * @return the response.
+   * @throws IOException if the response cannot be read.
+   */
+  public Response receive() throws IOException {
+    int id = in.readInt();
+    byte status = in.readByte();
+    int[] values = new int[in.readInt()];
+
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readInt();
+    }
+
+    return new Response(id, status, values);
+  }
+
+  /**
+   * Checks if an edge exists between two vertices.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @return true if the edge exists, false otherwise.
+   * @throws IOException if the request fails.
+   */
+  public boolean isEdge(int vertex1, int vertex2) throws IOException {
+    return call(GraphServer.IS_EDGE, vertex1, vertex2)[0] == 1;
+  }
+
+  /**
+   * This method is used to get the degree of a vertex.
+   *
+   * @param vertex the vertex.
+   * @return the degree of the vertex.
+   * @throws IOException if the request fails.
+   */
+  public int degree(int vertex) throws IOException {
+    return call(GraphServer.DEGREE, vertex, 0)[0];
+  }
+
+  /**
+   * This method is used to get the BFS order from a vertex.
+   *
+   * @param vertex the start vertex.
+   * @return the visited vertices, in BFS order.
+   * @throws IOException if the request fails.
+   */
+  public int[] bfs(int vertex) throws IOException {
+    return call(GraphServer.BFS, vertex, 0);
+  }
+
+  /**
+   * This method is used to get the DFS order from a vertex.
+   *
+   * @param vertex the start vertex.
+   * @return the visited vertices, in DFS order.
+   * @throws IOException if the request fails.
+   */
+  public int[] dfs(int vertex) throws IOException {
+    return call(GraphServer.DFS, vertex, 0);
+  }
+
+  /**
+   * This method is used to get a shortest path between two vertices.
+   *
+   * @param source the start vertex.
+   * @param target the end vertex.
+   * @return the vertices of the path, empty if the target is unreachable.
+   * @throws IOException if the request fails.
+   */
+  public int[] path(int source, int target) throws IOException {
+    return call(GraphServer.PATH, source, target);
+  }
+
+  /**
+   * This method is used to close the connection.
+   *
+   * @throws IOException if the connection cannot be closed.
+   */
+  public void close() throws IOException {
+    socket.close();
+  }
+
+  /**
+   * This method is used to send one request and wait for its response.
+   *
+   * @param opcode    the request type.
+   * @param argument1 the first argument.
+   * @param argument2 the second argument.
+   * @return the values of the response.
+   * @throws IOException if the request fails or is rejected.
+   */
+  private int[] call(byte opcode, int argument1, int argument2) throws IOException {
+    send(opcode, argument1, argument2);
+    flush();
+
+    Response response = receive();
+    if (response.getStatus() != GraphServer.OK) {
+      throw new IOException("Request " + response.getId() + " rejected");
+    }
+
+    return response.getValues();
+  }
+
+  /**
+   * Response of the graph query server.
+   */
+  public static class Response {
+    private final int id; // id of the answered request.
+    private final byte status; // OK or ERROR.
+    private final int[] values; // values of the response.
+
+    /**
+     * This is the constructor for the Response class.
+     *
+     * @param id     the id of the answered request.
+     * @param status the status of the response.
+     * @param values the values of the response.
+     */
+    Response(int id, byte status, int[] values) {
+      this.id = id;
+      this.status = status;
+      this.values = values;
+    }
+
+    /**
+     * Returns the id of the answered request.
+     *
+     * @return the request id.
+     */
+    public int getId() {
+      return id;
+    }
+
+    /**
+     * Returns the status of the response.
+     *
+     * @return the status.
+     */
+    public byte getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the values of the response.
+     *
+     * @return the values.
+     */
+    public int[] getValues() {
+      return values;
+    }
+  }
+}
@@ -0,0 +1,650 @@
+/******************************************************************************
+ *  Compilation:  javac GraphCompressed.java
+ *  Execution:    java GraphCompressed
+ *
+ *  A read-only graph, implementing gap-encoded compressed adjacency lists.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compressed adjacency list representation of a graph.
+ *
+ * <p>Each vertex stores its sorted neighbours as Elias gamma coded gaps in a
+ * single bit stream: the degree, the first neighbour as a zig-zag delta from
+ * the vertex itself, and then the differences between consecutive neighbours.
+ * Every {@code sampleInterval}-th vertex has its bit offset recorded, so a
+ * lookup skips at most {@code sampleInterval - 1} lists before decoding.
+ * Neighbours are decoded lazily while iterating, so {@code isEdge} stops as
+ * soon as it passes the requested vertex.
+ *
+ * @author ev
+ */
+public class GraphCompressed implements Graph {
+
+  public static final int DEFAULT_SAMPLE_INTERVAL = 16; // vertices between sampled offsets.
+
+  private int vertexCount = 0; // number of vertices.
+  private boolean isDirected = false; // is the graph directed?
+  private int sampleInterval = DEFAULT_SAMPLE_INTERVAL; // vertices between sampled offsets.
+  private long edgeCount = 0; // number of stored adjacency entries.
+  private long[] bits = null; // gamma coded adjacency lists.
+  private long bitLength = 0; // number of used bits in the stream.
+  private long[] sampledOffsets = null; // bit offset of every sampled vertex.
+
+  /**
+   * Initializes the compressed adjacency lists.
+   */
+  public GraphCompressed(int vertexCount, int[][] edges, boolean isDirected) {
+    this(vertexCount, edges, isDirected, DEFAULT_SAMPLE_INTERVAL);
+  }
+
+  public GraphCompressed(int vertexCount, int[][] edges, boolean isDirected, int sampleInterval) {
+    if (sampleInterval < 1) {
+      throw new IllegalArgumentException("Invalid sample interval: " + sampleInterval);
+    }
+
+    this.vertexCount = vertexCount;
+    this.isDirected = isDirected;
+    this.sampleInterval = sampleInterval;
+
+    int[] offsets = new int[vertexCount + 1];
+    int[] targets = collectAdjacency(edges, offsets);
+
+    encode(offsets, targets);
+  }
+
+  /**
+   * Returns the number of vertices in the graph.
+   *
+   * @return the number of vertices in the graph.
+   */
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Returns if the graph is directed.
+   *
+   * @return if the graph is directed.
+   */
+  public boolean isDirected() {
+    return isDirected;
+  }
+
+  /**
+   * Returns the number of stored adjacency entries, counting both directions
+   * of an undirected edge.
+   *
+   * @return the number of stored adjacency entries.
+   */
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Returns the average number of bits used per stored adjacency entry,
+   * including the sampled offset index.
+   *
+   * @return the bits used per edge.
+   */
+  public double bitsPerEdge() {
+    if (edgeCount == 0) {
+      return 0;
+    }
+
+    return (double) (bitLength + 64L * sampledOffsets.length) / edgeCount;
+  }
+
+  /**
+   * The compressed graph is read-only.
+   *
+   * @return never.
+   * @throws UnsupportedOperationException always.
+   */
+  public int addVertex() {
+    throw new UnsupportedOperationException("GraphCompressed is read-only");
+  }
+
+  /**
+   * The compressed graph is read-only.
+   *
+   * @param vertex the vertex.
+   * @throws UnsupportedOperationException always.
+   */
+  public void removeVertex(int vertex) {
+    throw new UnsupportedOperationException("GraphCompressed is read-only");
+  }
+
+  /**
+   * Checks if a vertex exists.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex exists, false otherwise.
+   */
+  public boolean isVertex(int vertex) {
+    return vertex >= 0 && vertex < this.vertexCount;
+  }
+
+  /**
+   * The compressed graph is read-only.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws UnsupportedOperationException always.
+   */
+  public void addEdge(int vertex1, int vertex2) {
+    throw new UnsupportedOperationException("GraphCompressed is read-only");
+  }
+
+  /**
+   * The compressed graph is read-only.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @throws UnsupportedOperationException always.
+   */
+  public void removeEdge(int vertex1, int vertex2) {
+    throw new UnsupportedOperationException("GraphCompressed is read-only");
+  }
+
+  /**
+   * Checks if an edge exists between two vertices.
+   *
+   * @param vertex1 the first vertex.
+   * @param vertex2 the second vertex.
+   * @return true if the edge exists, false otherwise.
+   */
+  public boolean isEdge(int vertex1, int vertex2) {
+    NeighborCursor cursor = cursor(vertex1);
+
+    while (cursor.hasNext()) {
+      int v = cursor.next();
+
+      if (v >= vertex2) {
+        return v == vertex2;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * This method is used to print the adjacency lists.
+   *
+   * @return the adjacency lists.
+   */
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      NeighborCursor cursor = cursor(i);
+
+      sb.append(i);
+      sb.append(":");
+      while (cursor.hasNext()) {
+        sb.append(" ");
+        sb.append(cursor.next());
+      }
+      sb.append("\n");
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * This method is used to get the vertex degree undirected graph.
+   *
+   * @param vertex the vertex whose degree is to be found.
+   * @return the degree of the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public int vertexDegreeUndirectedGraph(int vertex) {
+    return cursor(vertex).degree();
+  }
+
+  /**
+   * This method is used to get the overall vertex degree undirected graph.
+   */
+  public void overallVertexDegreeUndirectedGraph() {
+    for (int i = 0; i < this.vertexCount; i++) {
+      System.out.println("The degree of a vertex of the compressed lists: " + vertexDegreeUndirectedGraph(i));
+    }
+  }
+
+  /**
+   * This method is used to get the vertex degree directed graph.
+   *
+   * @param vertex the vertex whose degree is to be found.
+   * @return the degree of the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public int vertexDegreeDirectedGraph(int vertex) {
+    int outgoingDegree = cursor(vertex).degree();
+    int incomingDegree = 0;
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      if (isEdge(i, vertex)) {
+        incomingDegree++;
+      }
+    }
+
+    return incomingDegree + outgoingDegree;
+  }
+
+  /**
+   * This method is used to get the overall vertex degree directed graph.
+   */
+  public void overallVertexDegreeDirectedGraph() {
+    int[] incomingDegree = new int[this.vertexCount];
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      NeighborCursor cursor = cursor(i);
+
+      while (cursor.hasNext()) {
+        incomingDegree[cursor.next()]++;
+      }
+    }
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      int outgoingDegree = cursor(i).degree();
+
+      System.out.println("Vertex " + i + ": " + incomingDegree[i] + " " + outgoingDegree);
+      System.out.println("Vertex " + i + ": " + (incomingDegree[i] + outgoingDegree));
+    }
+  }
+
+  /**
+   * This method is used to get the transversal DFS of the graph.
+   *
+   * @param vertex  the vertex whose transversal is to be found.
+   * @param visited the array of visited vertices.
+   * @return the transversal of the graph.
+   */
+  public ArrayList<Integer> transversalDfs(int vertex, int[] visited) {
+    ArrayList<Integer> transversal = new ArrayList<Integer>();
+    NeighborCursor cursor = cursor(vertex);
+
+    visited[vertex] = 1;
+    transversal.add(vertex);
+    System.out.println("Vertex: " + vertex);
+
+    while (cursor.hasNext()) {
+      int v = cursor.next();
+
+      if (visited[v] == 0) {
+        transversal.addAll(transversalDfs(v, visited));
+      }
+    }
+
+    return transversal;
+  }
+
+  /**
+   * This method is used to get the transversal BFS of the graph.
+   *
+   * @param vertex the vertex whose transversal is to be found.
+   * @return the transversal of the graph.
+   */
+  public int[] transversalBfs(int vertex) {
+    int first = -1, latest = 0;
+    int[] queue = new int[this.vertexCount];
+    int[] visited = new int[this.vertexCount];
+
+    visited[vertex] = 1;
+    queue[latest] = vertex;
+
+    while (first != latest) {
+      first++;
+      vertex = queue[first];
+      System.out.println("Vertex: " + vertex);
+
+      NeighborCursor cursor = cursor(vertex);
+
+      while (cursor.hasNext()) {
+        int v = cursor.next();
+
+        if (visited[v] == 0) {
+          latest++;
+          visited[v] = 1;
+          queue[latest] = v;
+        }
+      }
+    }
+
+    return queue;
+  }
+
+  /**
+   * This method is used to get the neighbours of a vertex.
+   *
+   * @param vertex the vertex whose neighbours are to be found.
+   * @return the neighbours of the vertex, in ascending order.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  public int[] neighbors(int vertex) {
+    NeighborCursor cursor = cursor(vertex);
+    int[] neighbors = new int[cursor.degree()];
+
+    for (int i = 0; i < neighbors.length; i++) {
+      neighbors[i] = cursor.next();
+    }
+
+    return neighbors;
+  }
+
+  /**
+   * This method is used to get a lazy cursor over the neighbours of a vertex.
+   *
+   * @param vertex the vertex whose neighbours are to be decoded.
+   * @return the cursor positioned before the first neighbour.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  NeighborCursor cursor(int vertex) {
+    if (vertex < 0 || vertex >= this.vertexCount) {
+      throw new IllegalArgumentException("vertex " + vertex + " does not exist");
+    }
+
+    int sampled = vertex / this.sampleInterval;
+    NeighborCursor cursor = new NeighborCursor(sampled * this.sampleInterval, this.sampledOffsets[sampled]);
+
+    while (cursor.vertex < vertex) {
+      cursor.skip();
+    }
+
+    return cursor;
+  }
+
+  /**
+   * This method is used to build sorted, duplicate free adjacency arrays.
+   *
+   * @param edges   the edges of the graph.
+   * @param offsets the start of every vertex list, filled by this method.
+   * @return the neighbours of all vertices, indexed by the offsets.
+   */
+  private int[] collectAdjacency(int[][] edges, int[] offsets) {
+    int[] degree = new int[this.vertexCount + 1];
+
+    for (int i = 0; i < edges.length; i++) {
+      if (edges[i].length > 2) {
+        throw new IllegalArgumentException("Invalid edge: " + edges[i][0] + " " + edges[i][1] + " " + edges[i][2]);
+      }
+
+      int vertex1 = edges[i][0], vertex2 = edges[i][1];
+
+      if (vertex1 < 0 || vertex1 >= this.vertexCount || vertex2 < 0 || vertex2 >= this.vertexCount) {
+        throw new IllegalArgumentException("Invalid edge: " + vertex1 + " " + vertex2);
+      }
+
+      degree[vertex1 + 1]++;
+      if (!this.isDirected && vertex1 != vertex2) {
+        degree[vertex2 + 1]++;
+      }
+    }
+
+    for (int i = 1; i <= this.vertexCount; i++) {
+      degree[i] += degree[i - 1];
+    }
+
+    int[] fill = Arrays.copyOf(degree, this.vertexCount);
+    int[] targets = new int[degree[this.vertexCount]];
+
+    for (int i = 0; i < edges.length; i++) {
+      int vertex1 = edges[i][0], vertex2 = edges[i][1];
+
+      targets[fill[vertex1]++] = vertex2;
+      if (!this.isDirected && vertex1 != vertex2) {
+        targets[fill[vertex2]++] = vertex1;
+      }
+    }
+
+    // sort every list and squeeze out duplicated edges.
+    int size = 0;
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      int start = degree[i], end = degree[i + 1];
+
+      offsets[i] = size;
+      Arrays.sort(targets, start, end);
+
+      for (int j = start; j < end; j++) {
+        if (j == start || targets[j] != targets[j - 1]) {
+          targets[size++] = targets[j];
+        }
+      }
+    }
+    offsets[this.vertexCount] = size;
+
+    return targets;
+  }
+
+  /**
+   * This method is used to encode the adjacency arrays into the bit stream.
+   *
+   * @param offsets the start of every vertex list.
+   * @param targets the neighbours of all vertices.
+   */
+  private void encode(int[] offsets, int[] targets) {
+    BitWriter writer = new BitWriter(Math.max(1, targets.length));
+
+    this.sampledOffsets = new long[(this.vertexCount + this.sampleInterval - 1) / this.sampleInterval];
+
+    for (int i = 0; i < this.vertexCount; i++) {
+      int start = offsets[i], end = offsets[i + 1];
+
+      if (i % this.sampleInterval == 0) {
+        this.sampledOffsets[i / this.sampleInterval] = writer.position;
+      }
+
+      writer.writeGamma(end - start + 1);
+      for (int j = start; j < end; j++) {
+        if (j == start) {
+          long delta = (long) targets[j] - i;
+          writer.writeGamma(((delta << 1) ^ (delta >> 63)) + 1);
+        } else {
+          writer.writeGamma(targets[j] - targets[j - 1]);
+        }
+      }
+    }
+
+    this.edgeCount = offsets[this.vertexCount];
+    this.bitLength = writer.position;
+    this.bits = Arrays.copyOf(writer.words, (int) ((writer.position + 63) >>> 6) + 1);
+  }
+
+  /**
+   * This method is used to count the zero bits before the next one bit.
+   *
+   * @param position the bit position to start from.
+   * @return the number of leading zero bits.
+   */
+  private int leadingZeros(long position) {
+    int word = (int) (position >>> 6);
+    int offset = (int) (position & 63);
+    int zeros = 0;
+
+    while (true) {
+      long value = this.bits[word] << offset;
+
+      if (value != 0) {
+        return zeros + Long.numberOfLeadingZeros(value);
+      }
+
+      zeros += 64 - offset;
+      word++;
+      offset = 0;
+    }
+  }
+
+  /**
+   * This method is used to read up to 63 bits, most significant bit first.
+   *
+   * @param position the bit position to start from.
+   * @param count    the number of bits to read.
+   * @return the bits read.
+   */
+  private long readBits(long position, int count) {
+    int word = (int) (position >>> 6);
+    int offset = (int) (position & 63);
+    long value = this.bits[word] << offset;
+
+    if (offset + count > 64) {
+      value |= this.bits[word + 1] >>> (64 - offset);
+    }
+
+    return value >>> (64 - count);
+  }
+
+  /**
+   * Lazy decoder over the neighbours of a single vertex.
+   */
+  class NeighborCursor {
+    private int vertex; // vertex whose list is being decoded.
+    private long position; // bit position of the next code.
+    private int degree; // number of neighbours of the vertex.
+    private int remaining; // neighbours not decoded yet.
+    private int previous; // last decoded neighbour.
+
+    /**
+     * This is the constructor for the NeighborCursor class.
+     *
+     * @param vertex   the vertex whose list starts at the position.
+     * @param position the bit position of the list.
+     */
+    NeighborCursor(int vertex, long position) {
+      this.vertex = vertex;
+      this.position = position;
+      start();
+    }
+
+    /**
+     * This method is used to get the degree of the vertex.
+     *
+     * @return the degree of the vertex.
+     */
+    int degree() {
+      return degree;
+    }
+
+    /**
+     * This method is used to check if there are neighbours left.
+     *
+     * @return true if there are neighbours left, false otherwise.
+     */
+    boolean hasNext() {
+      return remaining > 0;
+    }
+
+    /**
+     * This method is used to decode the next neighbour.
+     *
+     * @return the next neighbour.
+     */
+    int next() {
+      long code = readGamma();
+
+      if (remaining == degree) {
+        long delta = code - 1;
+        previous = (int) (vertex + ((delta >>> 1) ^ -(delta & 1)));
+      } else {
+        previous += (int) code;
+      }
+      remaining--;
+
+      return previous;
+    }
+
+    /**
+     * This method is used to move past the current list to the next vertex.
+     */
+    private void skip() {
+      while (remaining > 0) {
+        readGamma();
+        remaining--;
+      }
+
+      vertex++;
+      start();
+    }
+
+    /**
+     * This method is used to decode the degree header of the current list.
+     */
+    private void start() {
+      if (vertex < vertexCount) {
+        degree = (int) readGamma() - 1;
+        remaining = degree;
+      }
+    }
+
+    /**
+     * This method is used to decode a single gamma code.
+     *
+     * @return the decoded value.
+     */
+    private long readGamma() {
+      int zeros = leadingZeros(position);
+      long value = readBits(position + zeros, zeros + 1);
+
+      position += 2 * zeros + 1;
+
+      return value;
+    }
+  }
+
+  /**
+   * Growable bit stream used while encoding.
+   */
+  private static class BitWriter {
+    private long[] words; // the encoded bits.
+    private long position = 0; // number of bits written.
+
+    /**
+     * This is the constructor for the BitWriter class.
+     *
+     * @param expectedCodes the expected number of codes to write.
+     */
+    BitWriter(int expectedCodes) {
+      this.words = new long[Math.max(2, expectedCodes / 16)];
+    }
+
+    /**
+     * This method is used to write a positive value as a gamma code.
+     *
+     * @param value the value to write.
+     */
+    void writeGamma(long value) {
+      int length = 64 - Long.numberOfLeadingZeros(value);
+
+      position += length - 1; // the unary prefix is all zeros.
+      writeBits(value, length);
+    }
+
+    /**
+     * This method is used to write the lowest bits of a value.
+     *
+     * @param value the value to write.
+     * @param count the number of bits to write.
+     */
+    private void writeBits(long value, int count) {
+      while (((position + count) >>> 6) + 1 >= words.length) {
+        words = Arrays.copyOf(words, words.length * 2);
+      }
+
+      int word = (int) (position >>> 6);
+      int offset = (int) (position & 63);
+      int shift = 64 - offset - count;
+
+      if (shift >= 0) {
+        words[word] |= value << shift;
+      } else {
+        words[word] |= value >>> -shift;
+        words[word + 1] |= value << (64 + shift);
+      }
+      position += count;
+    }
+  }
+}
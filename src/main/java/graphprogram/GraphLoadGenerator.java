@@ -0,0 +1,225 @@
+/******************************************************************************
+ *  Compilation:  javac GraphLoadGenerator.java
+ *  Execution:    java GraphLoadGenerator [clients] [seconds] [pipeline]
+ *
+ *  A load generator for the graph query server.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code GraphLoadGenerator} class measures the throughput of the graph
+ * query server under many concurrent clients.
+ *
+ * <p>The clients are spread over a few worker threads. Every round a worker
+ * sends a pipelined burst on each of its connections before it reads any
+ * response, so all connections have requests in flight at the same time.
+ * Every client connects before the clock starts, so the throughput covers the
+ * request phase only.
+ *
+ * @author ev
+ */
+public class GraphLoadGenerator {
+
+  /**
+   * Runs a server on a random graph and drives it with concurrent clients.
+   *
+   * @param args the number of clients, seconds and pipeline depth.
+   * @throws Exception if the benchmark fails.
+   */
+  public static void main(String[] args) throws Exception {
+    int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int pipeline = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+    int vertexCount = 100_000;
+    SplittableRandom random = new SplittableRandom(42);
+    int[][] edges = new int[8 * vertexCount][];
+
+    for (int i = 0; i < edges.length; i++) {
+      int vertex = random.nextInt(vertexCount);
+      edges[i] = new int[] { vertex, (vertex + 1 + random.nextInt(64)) % vertexCount };
+    }
+
+    Graph graph = new GraphCompressed(vertexCount, edges, false);
+
+    try (GraphServer server = new GraphServer(graph, 0).start()) {
+      int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+      Result result = run(server.getPort(), vertexCount, clients, workers, seconds * 1000L, pipeline);
+
+      System.out.printf("Clients: %d, connected in %.1f s, requests: %d, throughput: %.0f requests/s%n", clients,
+          result.getConnectNanos() / 1e9, result.getAnswered(), result.getRequestsPerSecond());
+      System.out.println("Server latency: " + server.getLatency());
+    }
+  }
+
+  /**
+   * This method is used to drive a server with concurrent clients. All of
+   * them connect first, then they send requests for the given duration.
+   *
+   * @param port           the port of the server.
+   * @param vertexCount    the number of vertices of the served graph.
+   * @param clients        the number of connections.
+   * @param workers        the number of client threads.
+   * @param durationMillis how long to send requests.
+   * @param pipeline       the requests sent per connection and round.
+   * @return the answered requests and the time they took.
+   * @throws Exception if a client fails.
+   */
+  public static Result run(int port, int vertexCount, int clients, int workers, long durationMillis, int pipeline)
+      throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    ArrayList<Future<Long>> results = new ArrayList<>();
+    CountDownLatch connected = new CountDownLatch(workers);
+    CountDownLatch go = new CountDownLatch(1);
+    AtomicLong deadline = new AtomicLong();
+    SplittableRandom seeds = new SplittableRandom(7);
+    long connectStart = System.nanoTime();
+
+    try {
+      for (int w = 0; w < workers; w++) {
+        int connections = clients / workers + (w < clients % workers ? 1 : 0);
+        SplittableRandom random = seeds.split();
+
+        results.add(pool.submit(
+            () -> drive(port, vertexCount, connections, connected, go, deadline, pipeline, random)));
+      }
+
+      connected.await();
+      long start = System.nanoTime();
+      deadline.set(start + TimeUnit.MILLISECONDS.toNanos(durationMillis));
+      go.countDown();
+
+      long answered = 0;
+      for (Future<Long> result : results) {
+        answered += result.get();
+      }
+
+      return new Result(answered, start - connectStart, System.nanoTime() - start);
+    } finally {
+      go.countDown();
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * This method is used to drive the connections of one worker.
+   *
+   * @param port        the port of the server.
+   * @param vertexCount the number of vertices of the served graph.
+   * @param connections the number of connections of the worker.
+   * @param connected   counted down once the connections are open.
+   * @param go          released when every worker is connected.
+   * @param deadline    when to stop sending, in {@link System#nanoTime} units,
+   *                    set before {@code go} is released.
+   * @param pipeline    the requests sent per connection and round.
+   * @param random      the source of the queried vertices.
+   * @return the number of answered requests.
+   * @throws IOException          if a connection fails.
+   * @throws InterruptedException if interrupted while waiting for the start.
+   */
+  private static long drive(int port, int vertexCount, int connections, CountDownLatch connected,
+      CountDownLatch go, AtomicLong deadline, int pipeline, SplittableRandom random)
+      throws IOException, InterruptedException {
+    GraphClient[] clients = new GraphClient[connections];
+    long answered = 0;
+
+    try {
+      try {
+        for (int i = 0; i < connections; i++) {
+          clients[i] = new GraphClient(port);
+        }
+      } finally {
+        // a failed worker must not keep the others waiting.
+        connected.countDown();
+      }
+      go.await();
+
+      long end = deadline.get();
+      while (System.nanoTime() < end) {
+        for (GraphClient client : clients) {
+          for (int i = 0; i < pipeline; i++) {
+            int kind = random.nextInt(100);
+            byte opcode = kind < 80 ? GraphServer.IS_EDGE : kind < 99 ? GraphServer.DEGREE : GraphServer.PATH;
+
+            client.send(opcode, random.nextInt(vertexCount), random.nextInt(vertexCount));
+          }
+          client.flush();
+        }
+
+        for (GraphClient client : clients) {
+          for (int i = 0; i < pipeline; i++) {
+            client.receive();
+            answered++;
+          }
+        }
+      }
+    } finally {
+      for (GraphClient client : clients) {
+        if (client != null) {
+          client.close();
+        }
+      }
+    }
+
+    return answered;
+  }
+
+  /**
+   * Outcome of a load generator run.
+   */
+  public static class Result {
+    private final long answered; // number of answered requests.
+    private final long connectNanos; // time to open every connection.
+    private final long requestNanos; // time from the start signal to the last response.
+
+    /**
+     * This is the constructor for the Result class.
+     *
+     * @param answered     the number of answered requests.
+     * @param connectNanos the time to open every connection.
+     * @param requestNanos the time of the request phase.
+     */
+    Result(long answered, long connectNanos, long requestNanos) {
+      this.answered = answered;
+      this.connectNanos = connectNanos;
+      this.requestNanos = requestNanos;
+    }
+
+    /**
+     * Returns the number of answered requests.
+     *
+     * @return the answered requests.
+     */
+    public long getAnswered() {
+      return answered;
+    }
+
+    /**
+     * Returns the time it took to open every connection.
+     *
+     * @return the connect time in nanoseconds.
+     */
+    public long getConnectNanos() {
+      return connectNanos;
+    }
+
+    /**
+     * Returns the answered requests per second of the request phase.
+     *
+     * @return the throughput.
+     */
+    public double getRequestsPerSecond() {
+      return requestNanos > 0 ? answered * 1e9 / requestNanos : 0;
+    }
+  }
+}
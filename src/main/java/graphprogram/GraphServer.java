@@ -0,0 +1,457 @@
+/******************************************************************************
+ *  Compilation:  javac GraphServer.java
+ *  Execution:    java GraphServer edges.txt [port] [directed]
+ *
+ *  A server answering graph queries over a binary protocol.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent graph query server on localhost TCP.
+ *
+ * <p>Every request is a fixed 13 byte frame: an opcode byte, an {@code int}
+ * request id and two {@code int} arguments. Every response is the request id,
+ * a status byte and a length prefixed array of {@code int} values:
+ *
+ * <pre>
+ *   IS_EDGE u v   [1] or [0]
+ *   DEGREE  u     [degree of u]
+ *   BFS     u     vertices reached from u, in BFS order
+ *   DFS     u     vertices reached from u, in DFS order
+ *   PATH    u v   shortest path from u to v, empty if unreachable
+ * </pre>
+ *
+ * <p>Clients may pipeline requests. Responses are written to a buffer and
+ * flushed only when no further request is already waiting on the connection,
+ * so a pipelined burst is answered with one write. Each connection is served
+ * by its own thread; the graph is only read, and must not be mutated while the
+ * server runs.
+ *
+ * @author ev
+ */
+public class GraphServer implements AutoCloseable {
+
+  public static final byte IS_EDGE = 1;
+  public static final byte DEGREE = 2;
+  public static final byte BFS = 3;
+  public static final byte DFS = 4;
+  public static final byte PATH = 5;
+
+  public static final byte OK = 0;
+  public static final byte ERROR = 1;
+
+  private static final int BACKLOG = 16384; // pending connections.
+  private static final int BUFFER_SIZE = 1 << 14; // bytes buffered per direction.
+  private static final int PATH_SEARCHES = Runtime.getRuntime().availableProcessors(); // pooled path searches.
+
+  private final Graph graph; // graph answering the queries.
+  private final ServerSocket serverSocket; // listening socket.
+  private final ExecutorService connections; // one thread per connection.
+  private final Set<Socket> clients = ConcurrentHashMap.newKeySet(); // open connections.
+  private final LatencyHistogram latency = new LatencyHistogram(); // service time per request.
+  private final AtomicLong requestCount = new AtomicLong(); // answered requests.
+  private final ArrayBlockingQueue<BidirectionalBfs> idlePaths = new ArrayBlockingQueue<>(
+      PATH_SEARCHES); // path searches not in use, sharing one reverse index.
+  private Thread acceptor = null; // thread accepting connections.
+  private volatile boolean running = false; // is the server accepting?
+
+  /**
+   * Initializes the server on the loopback interface.
+   *
+   * @param graph the graph answering the queries.
+   * @param port  the port, or 0 for any free port.
+   * @throws IOException if the port cannot be bound.
+   */
+  public GraphServer(Graph graph, int port) throws IOException {
+    this.graph = graph;
+    BidirectionalBfs paths = new BidirectionalBfs(graph);
+
+    idlePaths.add(paths);
+    for (int i = 1; i < PATH_SEARCHES; i++) {
+      idlePaths.add(new BidirectionalBfs(paths));
+    }
+    this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    this.connections = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(null, runnable, "graph-connection", 256 * 1024);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts a server for an edge list file, one {@code u v} pair per line.
+   *
+   * @param args the edge list file, the port and {@code directed}.
+   * @throws IOException if the file cannot be read or the port bound.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: GraphServer edges.txt [port] [directed]");
+      return;
+    }
+
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 7474;
+    boolean isDirected = args.length > 2 && args[2].equals("directed");
+    long start = System.nanoTime();
+    Graph graph = load(args[0], isDirected);
+    GraphServer server = new GraphServer(graph, port).start();
+
+    System.out.printf("Loaded %d vertices in %.1f ms, listening on port %d%n", graph.getVertexCount(),
+        (System.nanoTime() - start) / 1e6, server.getPort());
+
+    while (true) {
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        server.close();
+        return;
+      }
+      System.out.println("Latency: " + server.getLatency());
+    }
+  }
+
+  /**
+   * This method is used to load an edge list file into a compressed graph.
+   *
+   * @param file       the edge list file.
+   * @param isDirected is the graph directed?
+   * @return the loaded graph.
+   * @throws IOException if the file cannot be read.
+   */
+  public static Graph load(String file, boolean isDirected) throws IOException {
+    ArrayList<int[]> edges = new ArrayList<>();
+    int vertexCount = 0;
+
+    try (BufferedReader reader = Files.newBufferedReader(Paths.get(file))) {
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+
+        String[] fields = line.split("\\s+");
+        if (fields.length != 2) {
+          throw new IOException("Invalid edge: " + line);
+        }
+
+        int[] edge = { Integer.parseInt(fields[0]), Integer.parseInt(fields[1]) };
+        vertexCount = Math.max(vertexCount, Math.max(edge[0], edge[1]) + 1);
+        edges.add(edge);
+      }
+    }
+
+    return new GraphCompressed(vertexCount, edges.toArray(new int[0][]), isDirected);
+  }
+
+  /**
+   * This method is used to start accepting connections.
+   *
+   * @return this server.
+   */
+  public synchronized GraphServer start() {
+    if (acceptor == null) {
+      running = true;
+      acceptor = new Thread(this::acceptLoop, "graph-acceptor");
+      acceptor.setDaemon(true);
+      acceptor.start();
+    }
+
+    return this;
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the histogram of server side service times.
+   *
+   * @return the latency histogram.
+   */
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns the number of answered requests.
+   *
+   * @return the number of answered requests.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * This method is used to stop the server and drop every connection.
+   *
+   * @throws IOException if the listening socket cannot be closed.
+   */
+  public void close() throws IOException {
+    running = false;
+    try {
+      serverSocket.close();
+    } finally {
+      for (Socket client : clients) {
+        closeQuietly(client);
+      }
+      connections.shutdownNow();
+    }
+  }
+
+  /**
+   * This method is used to accept connections until the server is closed.
+   */
+  private void acceptLoop() {
+    while (running) {
+      try {
+        Socket client = serverSocket.accept();
+
+        client.setTcpNoDelay(true);
+        clients.add(client);
+        connections.execute(() -> serve(client));
+      } catch (IOException e) {
+        if (running) {
+          System.err.println("Accept failed: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * This method is used to answer the requests of one connection.
+   *
+   * @param client the connection.
+   */
+  private void serve(Socket client) {
+    try (client) {
+      BufferedInputStream buffered = new BufferedInputStream(client.getInputStream(), BUFFER_SIZE);
+      DataInputStream in = new DataInputStream(buffered);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream(), BUFFER_SIZE));
+
+      while (true) {
+        byte opcode = in.readByte();
+        int id = in.readInt();
+        int argument1 = in.readInt();
+        int argument2 = in.readInt();
+        long start = System.nanoTime();
+        int[] values = null;
+
+        try {
+          values = execute(opcode, argument1, argument2);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+          values = null;
+        }
+
+        out.writeInt(id);
+        out.writeByte(values == null ? ERROR : OK);
+        if (values == null) {
+          out.writeInt(0);
+        } else {
+          out.writeInt(values.length);
+          for (int value : values) {
+            out.writeInt(value);
+          }
+        }
+
+        latency.record(System.nanoTime() - start);
+        requestCount.incrementAndGet();
+
+        // answer a pipelined burst with a single write.
+        if (buffered.available() == 0) {
+          out.flush();
+        }
+      }
+    } catch (EOFException | SocketException e) {
+      // the client went away.
+    } catch (IOException e) {
+      System.err.println("Connection failed: " + e.getMessage());
+    } finally {
+      clients.remove(client);
+    }
+  }
+
+  /**
+   * This method is used to answer a single request.
+   *
+   * @param opcode    the request type.
+   * @param argument1 the first argument.
+   * @param argument2 the second argument.
+   * @return the values of the response.
+   * @throws IllegalArgumentException if the request is invalid.
+   */
+  int[] execute(byte opcode, int argument1, int argument2) {
+    switch (opcode) {
+      case IS_EDGE:
+        checkVertex(argument1);
+        checkVertex(argument2);
+        return new int[] { graph.isEdge(argument1, argument2) ? 1 : 0 };
+      case DEGREE:
+        checkVertex(argument1);
+        return new int[] { graph.neighbors(argument1).length };
+      case BFS:
+        checkVertex(argument1);
+        return bfs(argument1);
+      case DFS:
+        checkVertex(argument1);
+        return dfs(argument1);
+      case PATH:
+        checkVertex(argument1);
+        checkVertex(argument2);
+        return path(argument1, argument2);
+      default:
+        throw new IllegalArgumentException("Invalid opcode: " + opcode);
+    }
+  }
+
+  /**
+   * This method is used to validate a vertex.
+   *
+   * @param vertex the vertex.
+   * @throws IllegalArgumentException if the vertex does not exist.
+   */
+  private void checkVertex(int vertex) {
+    if (!graph.isVertex(vertex)) {
+      throw new IllegalArgumentException("vertex " + vertex + " does not exist");
+    }
+  }
+
+  /**
+   * This method is used to get the BFS order from a vertex.
+   *
+   * @param vertex the start vertex.
+   * @return the visited vertices, in BFS order.
+   */
+  private int[] bfs(int vertex) {
+    int first = 0, latest = 0;
+    int[] queue = new int[graph.getVertexCount()];
+    boolean[] visited = new boolean[graph.getVertexCount()];
+
+    visited[vertex] = true;
+    queue[latest++] = vertex;
+
+    while (first < latest) {
+      for (int v : graph.neighbors(queue[first++])) {
+        if (!visited[v]) {
+          visited[v] = true;
+          queue[latest++] = v;
+        }
+      }
+    }
+
+    return Arrays.copyOf(queue, latest);
+  }
+
+  /**
+   * This method is used to get the DFS order from a vertex, with an explicit
+   * stack so deep graphs do not overflow the connection thread.
+   *
+   * @param vertex the start vertex.
+   * @return the visited vertices, in DFS order.
+   */
+  private int[] dfs(int vertex) {
+    int size = 0, depth = 0;
+    int[] order = new int[graph.getVertexCount()];
+    int[][] stack = new int[graph.getVertexCount()][];
+    int[] next = new int[graph.getVertexCount()];
+    boolean[] visited = new boolean[graph.getVertexCount()];
+
+    visited[vertex] = true;
+    order[size++] = vertex;
+    stack[depth++] = graph.neighbors(vertex);
+
+    while (depth > 0) {
+      int[] neighbors = stack[depth - 1];
+
+      if (next[depth - 1] == neighbors.length) {
+        next[--depth] = 0;
+        continue;
+      }
+
+      int v = neighbors[next[depth - 1]++];
+      if (!visited[v]) {
+        visited[v] = true;
+        order[size++] = v;
+        stack[depth++] = graph.neighbors(v);
+      }
+    }
+
+    return Arrays.copyOf(order, size);
+  }
+
+  /**
+   * This method is used to get a shortest path between two vertices, with a
+   * bidirectional search borrowed from the pool. The pool holds one search
+   * per processor, made up front, and requests wait for a free one; each
+   * search holds several arrays the size of the graph, so their number must
+   * not follow the number of connections.
+   *
+   * @param source the start vertex.
+   * @param target the end vertex.
+   * @return the vertices of the path, empty if the target is unreachable.
+   */
+  private int[] path(int source, int target) {
+    BidirectionalBfs search = null;
+    boolean interrupted = false;
+
+    // every search comes back, so waiting through interrupts cannot hang.
+    while (search == null) {
+      try {
+        search = idlePaths.take();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    try {
+      return search.shortestPath(source, target);
+    } finally {
+      idlePaths.add(search);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * This method is used to close a socket, ignoring failures.
+   *
+   * @param socket the socket to close.
+   */
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing left to do.
+    }
+  }
+}
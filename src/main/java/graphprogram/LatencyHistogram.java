@@ -0,0 +1,138 @@
+/******************************************************************************
+ *  Compilation:  javac LatencyHistogram.java
+ *  Execution:    java LatencyHistogram
+ *
+ *  A concurrent log-linear histogram of latencies.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent histogram of latencies in nanoseconds.
+ *
+ * <p>Values below 16 have a bucket each; above that every power of two is
+ * split into 16 buckets, so a reported percentile is within about 6% of the
+ * recorded value.
+ *
+ * @author ev
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4; // log2 of the buckets per power of two.
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // buckets per power of two.
+
+  private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS); // values per bucket.
+
+  /**
+   * This method is used to record one latency.
+   *
+   * @param nanos the latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    counts.incrementAndGet(bucket(Math.max(0, nanos)));
+  }
+
+  /**
+   * This method is used to add the values of another histogram.
+   *
+   * @param other the histogram to add.
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length(); i++) {
+      long count = other.counts.get(i);
+
+      if (count != 0) {
+        counts.addAndGet(i, count);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   *
+   * @return the number of recorded latencies.
+   */
+  public long getCount() {
+    long count = 0;
+
+    for (int i = 0; i < counts.length(); i++) {
+      count += counts.get(i);
+    }
+
+    return count;
+  }
+
+  /**
+   * This method is used to get a percentile of the recorded latencies.
+   *
+   * @param percentile the percentile, between 0 and 100.
+   * @return the upper bound of the bucket holding the percentile, in
+   *         nanoseconds, or 0 if nothing was recorded.
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Invalid percentile: " + percentile);
+    }
+
+    long total = getCount();
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+
+      if (seen >= rank && total > 0) {
+        return lowerBound(i + 1) - 1;
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * This method is used to describe the usual percentiles in microseconds.
+   *
+   * @return the percentiles of the histogram.
+   */
+  public String toString() {
+    return String.format("count=%d p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", getCount(),
+        percentile(50) / 1e3, percentile(90) / 1e3, percentile(99) / 1e3, percentile(99.9) / 1e3,
+        percentile(100) / 1e3);
+  }
+
+  /**
+   * This method is used to get the bucket of a value.
+   *
+   * @param value the non negative value.
+   * @return the bucket index.
+   */
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * This method is used to get the smallest value of a bucket.
+   *
+   * @param bucket the bucket index.
+   * @return the smallest value falling into the bucket.
+   */
+  static long lowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+
+    return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+  }
+}
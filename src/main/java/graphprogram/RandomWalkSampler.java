@@ -0,0 +1,474 @@
+/******************************************************************************
+ *  Compilation:  javac RandomWalkSampler.java
+ *  Execution:    java RandomWalkSampler
+ *
+ *  Random walks and neighbourhood samples over a snapshot of a graph.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Random walk and k-hop neighbourhood sampling engine.
+ *
+ * <p>The constructor copies the adjacency of the graph into compressed sparse
+ * rows, so picking a random neighbour is a single array access. When edge
+ * weights are given every row also gets an alias table, which keeps weighted
+ * picks constant time. Later mutations of the graph are not seen.
+ *
+ * <p>Walks can be biased node2vec style with a return parameter {@code p} and
+ * an in-out parameter {@code q}. The second order bias is applied by rejection
+ * sampling on top of the first order pick, so no per-edge tables are needed.
+ *
+ * <p>Parallel walks split the starts into fixed chunks, each with its own
+ * {@link SplittableRandom} split from the seed in chunk order. The output only
+ * depends on the seed, not on the number of threads. A walk that reaches a
+ * vertex without outgoing edges is padded with -1.
+ *
+ * @author ev
+ */
+public class RandomWalkSampler {
+
+  private static final int CHUNK = 1024; // walk starts per parallel task.
+
+  private final int vertexCount; // number of vertices of the snapshot.
+  private final int[] offsets; // start of the row of every vertex.
+  private final int[] targets; // neighbours, ascending within a row.
+  private final double[] probability; // alias table cut-offs, null when unweighted.
+  private final int[] alias; // alias table fallbacks, null when unweighted.
+  private final double returnBias; // 1 / p, weight of stepping back.
+  private final double outwardBias; // 1 / q, weight of moving away.
+
+  /**
+   * Weight of an edge.
+   */
+  public interface EdgeWeight {
+    /**
+     * This method is used to get the weight of an edge.
+     *
+     * @param vertex1 the source vertex.
+     * @param vertex2 the target vertex.
+     * @return the non negative weight.
+     */
+    double weight(int vertex1, int vertex2);
+  }
+
+  /**
+   * Initializes an unweighted, unbiased sampler.
+   *
+   * @param graph the graph to sample.
+   */
+  public RandomWalkSampler(Graph graph) {
+    this(graph, null, 1, 1);
+  }
+
+  /**
+   * Initializes the sampler.
+   *
+   * @param graph   the graph to sample.
+   * @param weights the edge weights, or null for uniform picks.
+   * @param p       the node2vec return parameter.
+   * @param q       the node2vec in-out parameter.
+   */
+  public RandomWalkSampler(Graph graph, EdgeWeight weights, double p, double q) {
+    if (!(p > 0) || !(q > 0)) {
+      throw new IllegalArgumentException("Invalid bias: " + p + " " + q);
+    }
+
+    this.vertexCount = graph.getVertexCount();
+    this.returnBias = 1 / p;
+    this.outwardBias = 1 / q;
+
+    int[][] rows = new int[vertexCount][];
+    offsets = new int[vertexCount + 1];
+    for (int u = 0; u < vertexCount; u++) {
+      rows[u] = graph.isVertex(u) ? graph.neighbors(u) : new int[0];
+      Arrays.sort(rows[u]);
+      offsets[u + 1] = offsets[u] + rows[u].length;
+    }
+
+    targets = new int[offsets[vertexCount]];
+    for (int u = 0; u < vertexCount; u++) {
+      System.arraycopy(rows[u], 0, targets, offsets[u], rows[u].length);
+    }
+
+    if (weights == null) {
+      probability = null;
+      alias = null;
+    } else {
+      probability = new double[targets.length];
+      alias = new int[targets.length];
+      for (int u = 0; u < vertexCount; u++) {
+        buildAlias(u, weights);
+      }
+    }
+  }
+
+  /**
+   * This method is used to build the alias table of one row with Vose's
+   * method. A pick draws a slot uniformly and keeps it with the slot's
+   * probability, else takes the slot's alias.
+   *
+   * @param vertex  the vertex whose row to build.
+   * @param weights the edge weights.
+   */
+  private void buildAlias(int vertex, EdgeWeight weights) {
+    int start = offsets[vertex];
+    int degree = offsets[vertex + 1] - start;
+    double total = 0;
+
+    for (int i = start; i < start + degree; i++) {
+      double weight = weights.weight(vertex, targets[i]);
+
+      if (!(weight >= 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("Invalid weight: " + vertex + " " + targets[i] + " " + weight);
+      }
+      probability[i] = weight;
+      total += weight;
+    }
+
+    int[] small = new int[degree];
+    int[] large = new int[degree];
+    int smallCount = 0, largeCount = 0;
+
+    for (int i = start; i < start + degree; i++) {
+      // a row of zero weights falls back to uniform picks.
+      probability[i] = total > 0 ? probability[i] * degree / total : 1;
+      alias[i] = i;
+      if (probability[i] < 1) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+
+      alias[less] = more;
+      probability[more] += probability[less] - 1;
+      if (probability[more] < 1) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+
+    // whatever is left is 1 up to rounding.
+    while (largeCount > 0) {
+      probability[large[--largeCount]] = 1;
+    }
+    while (smallCount > 0) {
+      probability[small[--smallCount]] = 1;
+    }
+  }
+
+  /**
+   * This method is used to get the number of vertices of the snapshot.
+   *
+   * @return the number of vertices.
+   */
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * This method is used to pick a random neighbour by the first order
+   * weights.
+   *
+   * @param vertex the vertex.
+   * @param random the source of randomness.
+   * @return the neighbour, or -1 if the vertex has no outgoing edges.
+   */
+  public int sampleNeighbor(int vertex, SplittableRandom random) {
+    int start = offsets[vertex];
+    int degree = offsets[vertex + 1] - start;
+
+    if (degree == 0) {
+      return -1;
+    }
+
+    int slot = start + random.nextInt(degree);
+
+    if (probability != null && random.nextDouble() >= probability[slot]) {
+      slot = alias[slot];
+    }
+
+    return targets[slot];
+  }
+
+  /**
+   * This method is used to take one step of a node2vec walk. Candidates are
+   * drawn by the first order weights and accepted with their bias relative
+   * to the largest one possible at this step: {@code 1 / p} for going back to
+   * the previous vertex, 1 for a neighbour of the previous vertex,
+   * {@code 1 / q} otherwise. The return bias only counts towards the bound
+   * when the current vertex has an edge back, so a small {@code p} does not
+   * make the walk spin where it cannot return.
+   *
+   * @param previous the vertex before the current one, or -1 on the first step.
+   * @param current  the current vertex.
+   * @param random   the source of randomness.
+   * @return the next vertex, or -1 if the current one has no outgoing edges.
+   */
+  public int step(int previous, int current, SplittableRandom random) {
+    if (previous < 0 || returnBias == 1 && outwardBias == 1) {
+      return sampleNeighbor(current, random);
+    }
+
+    boolean canReturn = Arrays.binarySearch(targets, offsets[current], offsets[current + 1], previous) >= 0;
+    double maxBias = Math.max(1, Math.max(outwardBias, canReturn ? returnBias : 0));
+
+    while (true) {
+      int next = sampleNeighbor(current, random);
+
+      if (next < 0) {
+        return -1;
+      }
+
+      double bias;
+      if (next == previous) {
+        bias = returnBias;
+      } else if (Arrays.binarySearch(targets, offsets[previous], offsets[previous + 1], next) >= 0) {
+        bias = 1;
+      } else {
+        bias = outwardBias;
+      }
+
+      if (random.nextDouble() * maxBias < bias) {
+        return next;
+      }
+    }
+  }
+
+  /**
+   * This method is used to write one walk into a buffer.
+   *
+   * @param start  the first vertex of the walk.
+   * @param length the number of vertices of the walk.
+   * @param out    the buffer receiving the walk.
+   * @param offset where the walk starts in the buffer.
+   * @param random the source of randomness.
+   */
+  public void walk(int start, int length, int[] out, int offset, SplittableRandom random) {
+    if (start < 0 || start >= vertexCount) {
+      throw new IllegalArgumentException("Invalid vertex: " + start);
+    }
+
+    int previous = -1, current = start;
+
+    for (int i = 0; i < length; i++) {
+      out[offset + i] = current;
+      if (current >= 0) {
+        int next = step(previous, current, random);
+
+        previous = current;
+        current = next;
+      }
+    }
+  }
+
+  /**
+   * This method is used to run walks from every vertex in parallel. Walk
+   * {@code r * vertexCount + v} starts at vertex {@code v} and takes
+   * {@code length} slots of the result.
+   *
+   * @param walksPerVertex the number of walks started at every vertex.
+   * @param length         the number of vertices of every walk.
+   * @param seed           the seed of the walks.
+   * @param threads        the number of threads.
+   * @return the walks, one after the other.
+   */
+  public int[] walks(int walksPerVertex, int length, long seed, int threads) {
+    long size = (long) walksPerVertex * vertexCount * length;
+
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Too many walk steps for a buffer: " + size);
+    }
+
+    int[] out = new int[(int) size];
+    int walkCount = walksPerVertex * vertexCount;
+
+    try {
+      runChunks(walkCount, seed, threads, (first, last, random) -> {
+        for (int w = first; w < last; w++) {
+          walk(w % vertexCount, length, out, w * length, random);
+        }
+        return null;
+      }, chunk -> { });
+    } catch (IOException e) {
+      // the sink does not do any I/O.
+      throw new UncheckedIOException(e);
+    }
+
+    return out;
+  }
+
+  /**
+   * This method is used to run walks from every vertex in parallel and write
+   * them to a file, one walk per line with the vertices separated by spaces.
+   * Padding after a dead end is left out. Only a few chunks are buffered at
+   * a time.
+   *
+   * @param file           the file to write.
+   * @param walksPerVertex the number of walks started at every vertex.
+   * @param length         the number of vertices of every walk.
+   * @param seed           the seed of the walks.
+   * @param threads        the number of threads.
+   * @return the number of walk steps written.
+   * @throws IOException if the file cannot be written.
+   */
+  public long writeWalks(Path file, int walksPerVertex, int length, long seed, int threads) throws IOException {
+    long walkCount = (long) walksPerVertex * vertexCount;
+
+    if (walkCount > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many walks: " + walkCount);
+    }
+
+    long[] steps = { 0 };
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+      runChunks((int) walkCount, seed, threads, (first, last, random) -> {
+        int[] buffer = new int[(last - first) * length];
+
+        for (int w = first; w < last; w++) {
+          walk(w % vertexCount, length, buffer, (w - first) * length, random);
+        }
+        return buffer;
+      }, buffer -> {
+        StringBuilder line = new StringBuilder();
+
+        for (int i = 0; i < buffer.length; i += length) {
+          line.setLength(0);
+          for (int j = i; j < i + length && buffer[j] >= 0; j++) {
+            if (j > i) {
+              line.append(' ');
+            }
+            line.append(buffer[j]);
+            steps[0]++;
+          }
+          writer.append(line).append('\n');
+        }
+      });
+    }
+
+    return steps[0];
+  }
+
+  /**
+   * This method is used to sample the k-hop neighbourhood of a vertex,
+   * GraphSAGE style. Every vertex of a layer draws {@code fanouts[i]}
+   * neighbours with replacement into the next layer; vertices without
+   * outgoing edges draw nothing.
+   *
+   * @param vertex  the root vertex.
+   * @param fanouts the number of neighbours drawn per vertex and hop.
+   * @param random  the source of randomness.
+   * @return the layers, the first one being the root alone.
+   */
+  public int[][] sampleNeighborhood(int vertex, int[] fanouts, SplittableRandom random) {
+    if (vertex < 0 || vertex >= vertexCount) {
+      throw new IllegalArgumentException("Invalid vertex: " + vertex);
+    }
+
+    int[][] layers = new int[fanouts.length + 1][];
+    layers[0] = new int[] { vertex };
+
+    for (int hop = 0; hop < fanouts.length; hop++) {
+      int[] layer = layers[hop];
+      int[] next = new int[(int) Math.min(Integer.MAX_VALUE - 8, (long) layer.length * fanouts[hop])];
+      int size = 0;
+
+      for (int u : layer) {
+        if (offsets[u + 1] == offsets[u]) {
+          continue;
+        }
+        for (int i = 0; i < fanouts[hop] && size < next.length; i++) {
+          next[size++] = sampleNeighbor(u, random);
+        }
+      }
+
+      layers[hop + 1] = size == next.length ? next : Arrays.copyOf(next, size);
+    }
+
+    return layers;
+  }
+
+  /**
+   * Work done on a chunk of walks.
+   */
+  private interface ChunkTask<T> {
+    T run(int first, int last, SplittableRandom random);
+  }
+
+  /**
+   * Consumer of chunk results, called in chunk order.
+   */
+  private interface ChunkSink<T> {
+    void accept(T result) throws IOException;
+  }
+
+  /**
+   * This method is used to run tasks over fixed chunks of walks on a thread
+   * pool, at most twice the number of threads in flight, and hand the results
+   * to a sink in chunk order.
+   *
+   * @param walkCount the number of walks.
+   * @param seed      the seed split into one generator per chunk.
+   * @param threads   the number of threads.
+   * @param task      the work done on a chunk.
+   * @param sink      the consumer of the chunk results.
+   * @throws IOException if the sink fails.
+   */
+  private <T> void runChunks(int walkCount, long seed, int threads, ChunkTask<T> task, ChunkSink<T> sink)
+      throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid thread count: " + threads);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    ArrayList<Future<T>> pending = new ArrayList<>();
+    SplittableRandom seeds = new SplittableRandom(seed);
+
+    try {
+      int next = 0;
+
+      for (int first = 0; first < walkCount; first += CHUNK) {
+        int from = first, to = Math.min(walkCount, first + CHUNK);
+        SplittableRandom random = seeds.split();
+
+        pending.add(pool.submit(() -> task.run(from, to, random)));
+        if (pending.size() - next >= 2 * threads) {
+          sink.accept(pending.get(next).get());
+          pending.set(next++, null);
+        }
+      }
+
+      while (next < pending.size()) {
+        sink.accept(pending.get(next).get());
+        pending.set(next++, null);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while sampling", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/******************************************************************************
+ *  Compilation:  javac VertexFreeList.java
+ *  Execution:    java VertexFreeList
+ *
+ *  A free list of removed vertex ids.
+ *
+ ******************************************************************************/
+package graphprogram;
+
+import java.util.Arrays;
+
+/**
+ * Free list of removed vertex ids.
+ *
+ * <p>Removed ids are tombstoned in a bitset until {@link #poll} hands them out
+ * again, last removed first. Both arrays grow geometrically.
+ *
+ * @author ev
+ */
+class VertexFreeList {
+
+  private int[] ids = new int[8]; // removed ids, used as a stack.
+  private int size = 0; // number of removed ids.
+  private long[] removed = new long[1]; // tombstone of every removed id.
+
+  /**
+   * This method is used to tombstone a removed id.
+   *
+   * @param vertex the removed vertex.
+   */
+  void add(int vertex) {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+    }
+    if (vertex >>> 6 >= removed.length) {
+      removed = Arrays.copyOf(removed, Math.max(removed.length * 2, (vertex >>> 6) + 1));
+    }
+
+    ids[size++] = vertex;
+    removed[vertex >>> 6] |= 1L << vertex;
+  }
+
+  /**
+   * This method is used to take a removed id for reuse.
+   *
+   * @return the recycled id, or -1 if no id was removed.
+   */
+  int poll() {
+    if (size == 0) {
+      return -1;
+    }
+
+    int vertex = ids[--size];
+    removed[vertex >>> 6] &= ~(1L << vertex);
+
+    return vertex;
+  }
+
+  /**
+   * This method is used to check if an id is tombstoned.
+   *
+   * @param vertex the vertex.
+   * @return true if the vertex was removed and not reused, false otherwise.
+   */
+  boolean isRemoved(int vertex) {
+    return vertex >>> 6 < removed.length && (removed[vertex >>> 6] & (1L << vertex)) != 0;
+  }
+
+  /**
+   * Returns the number of removed ids.
+   *
+   * @return the number of removed ids.
+   */
+  int size() {
+    return size;
+  }
+}
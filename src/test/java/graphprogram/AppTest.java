@@ -1,7 +1,11 @@
 package graphprogram;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -61,4 +65,59 @@ public class AppTest {
 
     assertArrayEquals(expected, result);
   }
+
+  @Test
+  public void testAddRemoveVertexGraphAdjacencyMatrix() {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, this.edges, this.isDirected);
+
+    for (int i = 0; i < 200; i++) {
+      assertTrue(graph.addVertex() == this.vertexCount + i);
+    }
+    graph.addEdge(4, 204);
+    assertTrue(graph.isEdge(204, 4));
+
+    graph.removeVertex(3);
+    assertFalse(graph.isVertex(3));
+    assertFalse(graph.isEdge(1, 3));
+    assertArrayEquals(new int[] { 0, 1, 2, 0, 0 }, Arrays.copyOf(graph.transversalBfs(0), 5));
+
+    assertTrue(graph.addVertex() == 3);
+    assertTrue(graph.isVertex(3));
+    assertTrue(graph.neighbors(3).length == 0);
+  }
+
+  @Test
+  public void testOutOfRangeEdgeGraphAdjacencyMatrix() {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, this.edges, this.isDirected);
+
+    for (int vertex : new int[] { 5, 50, -1 }) {
+      try {
+        graph.addEdge(1, vertex);
+        fail("Added an edge to " + vertex);
+      } catch (IllegalArgumentException e) {
+        // expected.
+      }
+    }
+    assertArrayEquals(new int[] { 0, 2, 3 }, graph.neighbors(1));
+    assertTrue(graph.addVertex() == this.vertexCount);
+    assertTrue(graph.neighbors(this.vertexCount).length == 0);
+  }
+
+  @Test
+  public void testAddRemoveVertexGraphAdjacencyLinkedList() {
+    GraphAdjacencyLinkedList graph = new GraphAdjacencyLinkedList(this.vertexCount, this.edges, this.isDirected);
+
+    int vertex = graph.addVertex();
+    graph.addEdge(vertex, 0);
+    assertTrue(vertex == this.vertexCount);
+    assertArrayEquals(new int[] { 1, 2, 5 }, graph.neighbors(0));
+
+    graph.removeVertex(1);
+    assertFalse(graph.isVertex(1));
+    assertArrayEquals(new int[] { 2, 5 }, graph.neighbors(0));
+    assertTrue(graph.vertexDegreeUndirectedGraph(3) == 2);
+
+    assertTrue(graph.addVertex() == 1);
+    assertTrue(graph.addVertex() == this.vertexCount + 1);
+  }
 }
@@ -0,0 +1,93 @@
+package graphprogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code BidirectionalBfs} data type.
+ */
+public class BidirectionalBfsTest {
+  int vertexCount = 5;
+  int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 1, 3 }, { 2, 3 }, { 3, 4 } };
+
+  @Test
+  public void testShortestPathUndirected() {
+    BidirectionalBfs search = new BidirectionalBfs(new GraphAdjacencyMatrix(this.vertexCount, this.edges, false));
+
+    assertTrue(search.distance(0, 4) == 3);
+    assertTrue(search.distance(4, 0) == 3);
+    assertArrayEquals(new int[] { 1, 3 }, search.shortestPath(1, 3));
+    assertArrayEquals(new int[] { 2 }, search.shortestPath(2, 2));
+  }
+
+  @Test
+  public void testShortestPathDirected() {
+    BidirectionalBfs search = new BidirectionalBfs(new GraphAdaptive(this.vertexCount, this.edges, true));
+
+    assertTrue(search.distance(0, 4) == 3);
+    assertArrayEquals(new int[] { 3, 4 }, search.shortestPath(3, 4));
+    assertTrue(search.shortestPath(4, 0).length == 0);
+    assertTrue(search.distance(3, 1) == -1);
+  }
+
+  @Test
+  public void testDistancesMatchBreadthFirstSearch() {
+    int vertexCount = 300;
+    SplittableRandom random = new SplittableRandom(11);
+
+    for (boolean isDirected : new boolean[] { false, true }) {
+      int[][] edges = new int[600][];
+
+      for (int i = 0; i < edges.length; i++) {
+        edges[i] = new int[] { random.nextInt(vertexCount), random.nextInt(vertexCount) };
+      }
+
+      Graph graph = new GraphCompressed(vertexCount, edges, isDirected);
+      BidirectionalBfs search = new BidirectionalBfs(graph);
+
+      for (int source = 0; source < vertexCount; source += 7) {
+        int[] expected = distances(graph, source);
+
+        for (int target = 0; target < vertexCount; target++) {
+          int[] path = search.shortestPath(source, target);
+
+          assertTrue(path.length - 1 == expected[target]);
+          for (int i = 1; i < path.length; i++) {
+            assertTrue(graph.isEdge(path[i - 1], path[i]));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Plain BFS distances from a source, -1 for unreachable vertices.
+   */
+  private int[] distances(Graph graph, int source) {
+    int[] distance = new int[graph.getVertexCount()];
+    int[] queue = new int[graph.getVertexCount()];
+    int first = 0, latest = 0;
+
+    Arrays.fill(distance, -1);
+    distance[source] = 0;
+    queue[latest++] = source;
+
+    while (first < latest) {
+      int u = queue[first++];
+
+      for (int v : graph.neighbors(u)) {
+        if (distance[v] == -1) {
+          distance[v] = distance[u] + 1;
+          queue[latest++] = v;
+        }
+      }
+    }
+
+    return distance;
+  }
+}
@@ -0,0 +1,177 @@
+package graphprogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code DurableGraph} data type.
+ */
+public class DurableGraphTest {
+  int vertexCount = 5;
+  Path directory;
+
+  @Before
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("durable");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  private DurableGraph open() throws IOException {
+    return new DurableGraph(directory, this.vertexCount, false, GraphAdaptive::new, true, 0, 0);
+  }
+
+  @Test
+  public void testMutationsSurviveReopen() throws IOException {
+    try (DurableGraph graph = open()) {
+      graph.addEdge(0, 1);
+      graph.addEdge(1, 2);
+      graph.addEdge(3, 4);
+      graph.removeEdge(0, 1);
+      assertTrue(graph.addVertex() == 5);
+      graph.addEdge(5, 0);
+      graph.removeVertex(3);
+    }
+
+    try (DurableGraph graph = open()) {
+      assertTrue(graph.getRecoveredRecords() == 7);
+      assertFalse(graph.isEdge(0, 1));
+      assertTrue(graph.isEdge(2, 1));
+      assertTrue(graph.isEdge(0, 5));
+      assertFalse(graph.isVertex(3));
+      assertTrue(graph.neighbors(4).length == 0);
+      assertTrue(graph.addVertex() == 3);
+    }
+  }
+
+  @Test
+  public void testCheckpointTruncatesLogs() throws IOException {
+    try (DurableGraph graph = open()) {
+      graph.addEdge(0, 1);
+      graph.removeVertex(2);
+      graph.removeVertex(4);
+      graph.checkpoint();
+      graph.addEdge(1, 3);
+    }
+
+    try (Stream<Path> logs = Files.list(directory)) {
+      assertTrue(logs.filter(file -> file.getFileName().toString().startsWith("wal-")).count() == 1);
+    }
+
+    try (DurableGraph graph = open()) {
+      assertTrue(graph.getRecoveredRecords() == 1);
+      assertArrayEquals(new int[] { 0, 3 }, graph.neighbors(1));
+      assertFalse(graph.isVertex(2));
+      // the latest removed id is reused first, as before the restart.
+      assertTrue(graph.addVertex() == 4);
+    }
+  }
+
+  @Test
+  public void testTornTailIsCutOff() throws IOException {
+    try (DurableGraph graph = open()) {
+      graph.addEdge(0, 1);
+      graph.addEdge(1, 2);
+    }
+
+    Path log = directory.resolve("wal-0.log");
+    long size = Files.size(log);
+    Files.write(log, new byte[] { 1, 0, 0, 0, 2, 0, 0 }, StandardOpenOption.APPEND);
+
+    try (DurableGraph graph = open()) {
+      assertTrue(graph.getRecoveredRecords() == 2);
+      assertTrue(Files.size(log) == size);
+      graph.addEdge(2, 3);
+    }
+
+    try (DurableGraph graph = open()) {
+      assertTrue(graph.getRecoveredRecords() == 3);
+      assertTrue(graph.isEdge(3, 2));
+    }
+  }
+
+  @Test
+  public void testGroupCommit() throws Exception {
+    int threads = 8, mutations = 200;
+
+    try (DurableGraph graph = new DurableGraph(directory, 1000, true, GraphAdaptive::new, true, 1, 0)) {
+      ArrayList<Thread> writers = new ArrayList<>();
+
+      for (int t = 0; t < threads; t++) {
+        int source = t;
+        Thread writer = new Thread(() -> {
+          for (int i = 0; i < mutations; i++) {
+            graph.addEdge(source, 100 + i);
+          }
+        });
+        writers.add(writer);
+        writer.start();
+      }
+      for (Thread writer : writers) {
+        writer.join();
+      }
+
+      assertTrue(graph.getSyncCount() < threads * mutations);
+    }
+
+    try (DurableGraph graph = new DurableGraph(directory, 1000, true, GraphAdaptive::new)) {
+      assertTrue(graph.getRecoveredRecords() == threads * mutations);
+      assertTrue(graph.isEdge(7, 299));
+    }
+  }
+
+  @Test
+  public void testShapeIsPersisted() throws IOException {
+    try (DurableGraph graph = new DurableGraph(directory, this.vertexCount, true, GraphAdaptive::new, true, 0, 0)) {
+      graph.addEdge(0, 1);
+      graph.addEdge(3, 4);
+    }
+
+    try (DurableGraph graph = new DurableGraph(directory, 1, true, GraphAdaptive::new, true, 0, 0)) {
+      assertTrue(graph.getVertexCount() == this.vertexCount);
+      assertTrue(graph.isEdge(3, 4));
+      assertFalse(graph.isEdge(1, 0));
+    }
+
+    try (DurableGraph graph = open()) {
+      fail("Reopened a directed graph as undirected");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("directed"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testDamagedOlderLogFailsRecovery() throws IOException {
+    try (DurableGraph graph = open()) {
+      graph.addEdge(0, 1);
+      graph.addEdge(1, 2);
+    }
+
+    // a damaged record followed by a newer generation.
+    Files.write(directory.resolve("wal-0.log"), new byte[13], StandardOpenOption.APPEND);
+    ByteBuffer header = ByteBuffer.allocate(12).putInt(0x4757414c).putLong(1);
+    Files.write(directory.resolve("wal-1.log"), header.array());
+
+    open().close();
+  }
+}
@@ -0,0 +1,133 @@
+package graphprogram;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code EdgeStreamIngestor} data type.
+ */
+public class EdgeStreamIngestorTest {
+  int vertexCount = 5;
+
+  @Test
+  public void testIngestKeepsEventOrderPerSource() throws Exception {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, false);
+    String events = "+ 0 1\n+ 3 4\n0 2\n- 1 0\n+ 1 3\r\n- 4 3\n+ 3 4";
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph, 2, 3, 1, 2);
+
+    ingestor.ingest(new ByteArrayInputStream(events.getBytes(StandardCharsets.US_ASCII)));
+    ingestor.close();
+
+    assertTrue(ingestor.getAppliedEvents() == 7);
+    assertFalse(graph.isEdge(0, 1));
+    assertTrue(graph.isEdge(0, 2));
+    assertTrue(graph.isEdge(3, 1));
+    assertTrue(graph.isEdge(3, 4));
+  }
+
+  @Test
+  public void testSubmitAppliesBatches() throws Exception {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, true);
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph, 4, 4, 1, 2).start();
+
+    for (int i = 0; i < 100; i++) {
+      ingestor.addEdge(i % this.vertexCount, (i + 1) % this.vertexCount);
+    }
+    ingestor.removeEdge(4, 0);
+    ingestor.close();
+
+    assertTrue(ingestor.getAppliedEvents() == 101);
+    assertTrue(ingestor.getAppliedBatches() >= 26);
+    assertTrue(graph.isEdge(0, 1));
+    assertFalse(graph.isEdge(1, 0));
+    assertFalse(graph.isEdge(4, 0));
+  }
+
+  @Test
+  public void testIngestDirectedKeepsEventOrderPerSource() throws Exception {
+    GraphAdaptive graph = new GraphAdaptive(this.vertexCount, true);
+    String events = "+ 4 0\n+ 0 4\n+ 2 1\n- 4 0\n+ 1 2\n- 2 1\n+ 4 0\n- 0 4\n";
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph, 16, 16, 1, 2);
+
+    ingestor.ingest(new ByteArrayInputStream(events.getBytes(StandardCharsets.US_ASCII)));
+    ingestor.close();
+
+    assertTrue(ingestor.getAppliedEvents() == 8);
+    assertTrue(graph.isEdge(4, 0));
+    assertFalse(graph.isEdge(0, 4));
+    assertTrue(graph.isEdge(1, 2));
+    assertFalse(graph.isEdge(2, 1));
+  }
+
+  @Test(expected = IOException.class)
+  public void testIngestRejectsMalformedLine() throws Exception {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, false);
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph);
+
+    ingestor.ingest(new ByteArrayInputStream("+ 0 1\n+ 2\n".getBytes(StandardCharsets.US_ASCII)));
+    ingestor.close();
+  }
+
+  @Test
+  public void testIngestRejectsMalformedLines() throws Exception {
+    String[] lines = { "# 1 2", "x 1 2", "1 -2", "+1 2", "+", "1 2 3" };
+
+    for (String line : lines) {
+      GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, false);
+      EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph);
+
+      ingestor.ingest(new ByteArrayInputStream((line + "\n").getBytes(StandardCharsets.US_ASCII)));
+      try {
+        ingestor.close();
+        fail("Accepted " + line);
+      } catch (IOException e) {
+        assertTrue(e.getMessage().startsWith("Invalid edge event at line"));
+      }
+    }
+  }
+
+  @Test
+  public void testOutOfRangeEventIsSkipped() throws Exception {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, false);
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph, 2, 2, 1, 2);
+    String events = "+ 99 1\n0 1\n\n1 2\n- 3 77\n2 3\n";
+
+    ingestor.ingest(new ByteArrayInputStream(events.getBytes(StandardCharsets.US_ASCII)));
+    ingestor.close();
+
+    assertTrue(ingestor.getAppliedEvents() == 3);
+    assertTrue(ingestor.getRejectedEvents() == 2);
+    assertTrue(graph.isEdge(1, 0));
+    assertTrue(graph.isEdge(3, 2));
+  }
+
+  @Test
+  public void testLiveStreamIsAppliedWithoutFullChunk() throws Exception {
+    GraphAdjacencyMatrix graph = new GraphAdjacencyMatrix(this.vertexCount, false);
+    EdgeStreamIngestor ingestor = new EdgeStreamIngestor(graph);
+    PipedOutputStream out = new PipedOutputStream();
+
+    ingestor.ingest(new PipedInputStream(out));
+    out.write("+ 0 1\n+ 2 3\n".getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (ingestor.getAppliedEvents() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(ingestor.getAppliedEvents() == 2);
+    assertTrue(graph.isEdge(3, 2));
+
+    out.close();
+    ingestor.close();
+  }
+}
@@ -0,0 +1,91 @@
+package graphprogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code GraphAdaptive} data type.
+ */
+public class GraphAdaptiveTest {
+  int vertexCount = 5;
+  int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 1, 3 }, { 2, 3 }, { 3, 4 } };
+  boolean isDirected = false;
+
+  @Test
+  public void testTransversalBfsGraphAdaptive() {
+    GraphAdaptive graph = new GraphAdaptive(this.vertexCount, this.edges, this.isDirected);
+
+    int[] expected = { 0, 1, 2, 3, 4 };
+    int[] result = graph.transversalBfs(0);
+
+    assertArrayEquals(expected, result);
+  }
+
+  @Test
+  public void testTransversalDfsGraphAdaptive() {
+    GraphAdaptive graph = new GraphAdaptive(this.vertexCount, this.edges, this.isDirected);
+
+    Object[] expected = new Object[] { 0, 1, 2, 3, 4 };
+    int[] visited = new int[this.vertexCount + 1];
+    Object[] result = graph.transversalDfs(0, visited).toArray();
+
+    assertArrayEquals(expected, result);
+  }
+
+  @Test
+  public void testHubPromotionAndDemotion() {
+    int vertexCount = 200;
+    GraphAdaptive graph = new GraphAdaptive(vertexCount, true);
+    int hubDegree = graph.getHubDegree();
+
+    for (int i = 1; i <= hubDegree; i++) {
+      graph.addEdge(0, i * 3);
+    }
+    assertFalse(graph.isHub(0));
+
+    graph.addEdge(0, 199);
+    assertTrue(graph.isHub(0));
+    assertTrue(graph.isEdge(0, 199));
+    assertTrue(graph.isEdge(0, 3));
+    assertFalse(graph.isEdge(0, 4));
+    assertTrue(graph.vertexDegreeDirectedGraph(0) == hubDegree + 1);
+    assertTrue(graph.vertexDegreeDirectedGraph(199) == 1);
+
+    for (int i = 1; i <= hubDegree; i++) {
+      graph.removeEdge(0, i * 3);
+    }
+    assertFalse(graph.isHub(0));
+    assertTrue(graph.isEdge(0, 199));
+    assertFalse(graph.isEdge(0, 3));
+    assertTrue(graph.getEdgeCount() == 1);
+  }
+
+  @Test
+  public void testAddRemoveVertexGraphAdaptive() {
+    GraphAdaptive graph = new GraphAdaptive(0, true);
+
+    for (int i = 0; i < 300; i++) {
+      assertTrue(graph.addVertex() == i);
+    }
+    for (int i = 1; i < 300; i++) {
+      graph.addEdge(0, i);
+      graph.addEdge(i, 0);
+    }
+    assertTrue(graph.isHub(0));
+
+    int vertex = graph.addVertex();
+    graph.addEdge(0, vertex);
+    assertTrue(graph.isEdge(0, vertex));
+
+    graph.removeVertex(0);
+    assertFalse(graph.isVertex(0));
+    assertTrue(graph.neighbors(5).length == 0);
+    assertTrue(graph.vertexDegreeDirectedGraph(vertex) == 0);
+    assertTrue(graph.getEdgeCount() == 0);
+    assertTrue(graph.addVertex() == 0);
+    assertFalse(graph.isHub(0));
+  }
+}
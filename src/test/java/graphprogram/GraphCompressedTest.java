@@ -0,0 +1,70 @@
+package graphprogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code GraphCompressed} data type.
+ */
+public class GraphCompressedTest {
+  int vertexCount = 5;
+  int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 1, 3 }, { 2, 3 }, { 3, 4 } };
+  boolean isDirected = false;
+
+  @Test
+  public void testIsEdgeGraphCompressed() {
+    GraphCompressed graph = new GraphCompressed(this.vertexCount, this.edges, this.isDirected, 2);
+
+    for (int[] edge : this.edges) {
+      assertTrue(graph.isEdge(edge[0], edge[1]));
+      assertTrue(graph.isEdge(edge[1], edge[0]));
+    }
+    assertFalse(graph.isEdge(0, 3));
+    assertFalse(graph.isEdge(4, 0));
+    assertTrue(graph.vertexDegreeUndirectedGraph(3) == 3);
+  }
+
+  @Test
+  public void testTransversalBfsGraphCompressed() {
+    GraphCompressed graph = new GraphCompressed(this.vertexCount, this.edges, this.isDirected);
+
+    int[] expected = { 0, 1, 2, 3, 4 };
+    int[] result = graph.transversalBfs(0);
+
+    assertArrayEquals(expected, result);
+  }
+
+  @Test
+  public void testTransversalDfsGraphCompressed() {
+    GraphCompressed graph = new GraphCompressed(this.vertexCount, this.edges, this.isDirected);
+
+    Object[] expected = new Object[] { 0, 1, 2, 3, 4 };
+    int[] visited = new int[this.vertexCount + 1];
+    Object[] result = graph.transversalDfs(0, visited).toArray();
+
+    assertArrayEquals(expected, result);
+  }
+
+  @Test
+  public void testBitsPerEdgeGraphCompressed() {
+    int vertexCount = 10000, window = 4;
+    int[][] edges = new int[vertexCount * window][];
+
+    for (int i = 0; i < vertexCount; i++) {
+      for (int j = 1; j <= window; j++) {
+        edges[i * window + j - 1] = new int[] { i, (i + j) % vertexCount };
+      }
+    }
+
+    GraphCompressed graph = new GraphCompressed(vertexCount, edges, false);
+
+    assertTrue(graph.getEdgeCount() == 2L * vertexCount * window);
+    assertTrue(graph.isEdge(vertexCount - 1, 0));
+    assertTrue(graph.isEdge(5000, 4996));
+    assertFalse(graph.isEdge(5000, 4995));
+    assertTrue(graph.bitsPerEdge() < 4);
+  }
+}
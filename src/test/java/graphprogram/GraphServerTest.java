@@ -0,0 +1,121 @@
+package graphprogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code GraphServer} data type.
+ */
+public class GraphServerTest {
+  int vertexCount = 5;
+  int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 1, 3 }, { 2, 3 }, { 3, 4 } };
+  boolean isDirected = false;
+
+  @Test
+  public void testQueries() throws Exception {
+    Graph graph = new GraphCompressed(this.vertexCount, this.edges, this.isDirected);
+
+    try (GraphServer server = new GraphServer(graph, 0).start(); GraphClient client = new GraphClient(server.getPort())) {
+      assertTrue(client.isEdge(1, 3));
+      assertFalse(client.isEdge(0, 4));
+      assertTrue(client.degree(3) == 3);
+      assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, client.bfs(0));
+      assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, client.dfs(0));
+      assertArrayEquals(new int[] { 0, 1, 3, 4 }, client.path(0, 4));
+      assertArrayEquals(new int[] { 2 }, client.path(2, 2));
+    }
+  }
+
+  @Test
+  public void testPipelinedRequests() throws Exception {
+    Graph graph = new GraphAdjacencyMatrix(this.vertexCount, this.edges, this.isDirected);
+
+    try (GraphServer server = new GraphServer(graph, 0).start(); GraphClient client = new GraphClient(server.getPort())) {
+      int first = client.send(GraphServer.IS_EDGE, 3, 4);
+      client.send(GraphServer.DEGREE, 9, 0);
+      client.send(GraphServer.PATH, 4, 0);
+      client.flush();
+
+      GraphClient.Response response = client.receive();
+      assertTrue(response.getId() == first && response.getValues()[0] == 1);
+      assertTrue(client.receive().getStatus() == GraphServer.ERROR);
+      assertArrayEquals(new int[] { 4, 3, 1, 0 }, client.receive().getValues());
+      assertTrue(server.getRequestCount() == 3);
+      assertTrue(server.getLatency().getCount() == 3);
+    }
+  }
+
+  @Test
+  public void testLoadGenerator() throws Exception {
+    Graph graph = new GraphCompressed(this.vertexCount, this.edges, this.isDirected);
+
+    try (GraphServer server = new GraphServer(graph, 0).start()) {
+      GraphLoadGenerator.Result result = GraphLoadGenerator.run(server.getPort(), this.vertexCount, 50, 2, 200, 4);
+
+      assertTrue(result.getAnswered() > 0);
+      assertTrue(result.getRequestsPerSecond() > 0);
+      assertTrue(server.getLatency().percentile(99) >= server.getLatency().percentile(50));
+    }
+  }
+
+  @Test
+  public void testOverlappingPathRequests() throws Exception {
+    int vertexCount = 2000;
+    SplittableRandom random = new SplittableRandom(3);
+    int[][] edges = new int[4 * vertexCount][];
+
+    for (int i = 0; i < edges.length; i++) {
+      edges[i] = new int[] { random.nextInt(vertexCount), random.nextInt(vertexCount) };
+    }
+
+    Graph graph = new GraphCompressed(vertexCount, edges, this.isDirected);
+    BidirectionalBfs expected = new BidirectionalBfs(graph);
+    ExecutorService pool = Executors.newFixedThreadPool(32);
+
+    try (GraphServer server = new GraphServer(graph, 0).start()) {
+      ArrayList<Future<Boolean>> results = new ArrayList<>();
+
+      for (int c = 0; c < 32; c++) {
+        SplittableRandom queries = random.split();
+
+        results.add(pool.submit(() -> {
+          try (GraphClient client = new GraphClient(server.getPort())) {
+            int[][] pairs = new int[50][];
+
+            for (int i = 0; i < pairs.length; i++) {
+              pairs[i] = new int[] { queries.nextInt(vertexCount), queries.nextInt(vertexCount) };
+              client.send(GraphServer.PATH, pairs[i][0], pairs[i][1]);
+            }
+            client.flush();
+
+            boolean valid = true;
+            for (int[] pair : pairs) {
+              int[] path = client.receive().getValues();
+
+              synchronized (expected) {
+                valid &= path.length == expected.shortestPath(pair[0], pair[1]).length;
+              }
+            }
+            return valid;
+          }
+        }));
+      }
+
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+      assertTrue(server.getRequestCount() == 32 * 50);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package graphprogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Unit tests the {@code RandomWalkSampler} data type.
+ */
+public class RandomWalkSamplerTest {
+  int vertexCount = 5;
+  int[][] edges = { { 0, 1 }, { 0, 2 }, { 1, 2 }, { 1, 3 }, { 2, 3 }, { 3, 4 } };
+
+  @Test
+  public void testWalksFollowEdgesAndIgnoreThreadCount() {
+    Graph graph = new GraphCompressed(this.vertexCount, this.edges, true);
+    RandomWalkSampler sampler = new RandomWalkSampler(graph);
+
+    int[] walks = sampler.walks(500, 6, 3, 1);
+    assertArrayEquals(walks, sampler.walks(500, 6, 3, 4));
+
+    for (int w = 0; w < walks.length / 6; w++) {
+      assertTrue(walks[w * 6] == w % this.vertexCount);
+      for (int i = w * 6 + 1; i < w * 6 + 6; i++) {
+        assertTrue(walks[i] == -1 ? walks[i - 1] == 4 || walks[i - 1] == -1 : graph.isEdge(walks[i - 1], walks[i]));
+      }
+    }
+  }
+
+  @Test
+  public void testWeightedSampling() {
+    Graph graph = new GraphAdjacencyMatrix(this.vertexCount, this.edges, false);
+    RandomWalkSampler sampler = new RandomWalkSampler(graph, (u, v) -> v == 3 ? 6 : v == 2 ? 0 : 1, 1, 1);
+    SplittableRandom random = new SplittableRandom(5);
+    int[] counts = new int[this.vertexCount];
+
+    for (int i = 0; i < 70_000; i++) {
+      counts[sampler.sampleNeighbor(1, random)]++;
+    }
+
+    // neighbours of 1 are 0, 2 and 3 with weights 1, 0 and 6.
+    assertTrue(counts[2] == 0);
+    assertTrue(Math.abs(counts[0] - 10_000) < 600);
+    assertTrue(Math.abs(counts[3] - 60_000) < 600);
+  }
+
+  @Test
+  public void testReturnBias() {
+    Graph graph = new GraphAdaptive(this.vertexCount, this.edges, false);
+    RandomWalkSampler sampler = new RandomWalkSampler(graph, null, 0.001, 1);
+    SplittableRandom random = new SplittableRandom(9);
+    int returns = 0;
+
+    for (int i = 0; i < 1000; i++) {
+      if (sampler.step(1, 3, random) == 1) {
+        returns++;
+      }
+    }
+
+    assertTrue(returns > 990);
+  }
+
+  @Test(timeout = 5000)
+  public void testReturnBiasWithoutEdgeBack() {
+    Graph graph = new GraphAdaptive(this.vertexCount, this.edges, true);
+    RandomWalkSampler sampler = new RandomWalkSampler(graph, null, 1e-9, 1);
+    SplittableRandom random = new SplittableRandom(9);
+
+    // 3 has no edge back to 1, so the return bias must not slow the step down.
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(sampler.step(1, 3, random) == 4);
+    }
+  }
+
+  @Test
+  public void testNeighborhoodAndWalkFile() throws Exception {
+    Graph graph = new GraphCompressed(this.vertexCount, this.edges, true);
+    RandomWalkSampler sampler = new RandomWalkSampler(graph);
+
+    int[][] layers = sampler.sampleNeighborhood(0, new int[] { 3, 2 }, new SplittableRandom(1));
+    assertArrayEquals(new int[] { 0 }, layers[0]);
+    assertTrue(layers[1].length == 3);
+    assertTrue(layers[2].length == 6);
+    for (int v : layers[2]) {
+      assertTrue(v == 2 || v == 3);
+    }
+
+    Path file = Files.createTempFile("walks", ".txt");
+    try {
+      long steps = sampler.writeWalks(file, 2, 4, 3, 2);
+      List<String> lines = Files.readAllLines(file);
+
+      assertTrue(lines.size() == 2 * this.vertexCount);
+      assertTrue(lines.get(4).equals("4"));
+      assertTrue(steps == lines.stream().mapToInt(line -> line.split(" ").length).sum());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}